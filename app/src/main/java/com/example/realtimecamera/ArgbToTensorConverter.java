@@ -0,0 +1,53 @@
+package com.example.realtimecamera;
+
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+
+// ARGB 픽셀 배열(Bitmap.getPixels 결과)을 모델 입력 텐서로 변환하는 클래스
+// ImageProcessor처럼 중간 이미지를 만들지 않고, InputSampler로 필요한 픽셀만 골라서 바로 씀.
+// InputSampler는 (입력 크기, 모델 크기, 회전)이 바뀔 때만 다시 만듬
+// 한 객체를 여러 스레드에서 동시에 사용하면 안 됨.
+public class ArgbToTensorConverter {
+
+    private InputSampler sampler;
+    private final InputQuantizer quantizer = new InputQuantizer();
+
+    // quantized 모델 입력 텐서의 quantizationParams() 값. 지정하지 않으면 scale 1/255
+    public void setInputQuantization(float scale, int zeroPoint) {
+        quantizer.set(scale, zeroPoint);
+    }
+
+    public void convert(int[] argb, int width, int height, int numRotation,
+                        int dstWidth, int dstHeight, DataType inputType, ByteBuffer output) {
+        YuvToTensorConverter.checkInputType(inputType);
+        if (sampler == null || !sampler.matches(width, height, dstWidth, dstHeight, numRotation)) {
+            sampler = new InputSampler(width, height, dstWidth, dstHeight, numRotation);
+        }
+        write(argb, width, inputType, output);
+    }
+
+    // 이미지의 region 영역만 잘라서 변환. 영역마다 Bitmap을 만들지 않고 픽셀 배열에서 바로 읽음
+    public void convert(int[] argb, int width, int height, CropRegion region, int numRotation,
+                        int dstWidth, int dstHeight, DataType inputType, ByteBuffer output) {
+        YuvToTensorConverter.checkInputType(inputType);
+        region.checkInside(width, height);
+        if (sampler == null || !sampler.matches(region, dstWidth, dstHeight, numRotation)) {
+            sampler = new InputSampler(region.left, region.top, region.width, region.height,
+                    dstWidth, dstHeight, numRotation);
+        }
+        write(argb, width, inputType, output);
+    }
+
+    private void write(int[] argb, int width, DataType inputType, ByteBuffer output) {
+        final int[] sourceX = sampler.sourceX;
+        final int[] sourceY = sampler.sourceY;
+        final byte[] table = inputType == DataType.FLOAT32 ? null : quantizer.table(inputType);
+
+        output.rewind();
+        for (int i = 0; i < sourceX.length; i++) {
+            YuvToTensorConverter.putRgb(output, argb[sourceY[i] * width + sourceX[i]], table);
+        }
+        output.rewind();
+    }
+}
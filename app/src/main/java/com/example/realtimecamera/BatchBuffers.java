@@ -0,0 +1,115 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+// 배치 추론의 입출력 버퍼. 입력 i번(자리)의 결과는 항상 출력 i번 자리에 들어감
+// 모델이 batch 차원 변경을 지원하면 전체 버퍼로 한 번 run 하고,
+// 지원하지 않으면 자리마다 한 장씩 run 함 (결과 자리는 같음)
+// 버퍼와 batch 차원은 지금까지 요청된 가장 큰 장 수(capacity)로 유지하고 늘어날 때만 다시 만듦
+// 더 적은 장 수는 앞쪽 자리만 사용 (batch 차원 그대로 run 하고 뒤쪽 결과는 무시)
+// 한 스레드(추론 스레드)에서만 사용
+class BatchBuffers {
+
+    // 배치를 실행하는 Interpreter. 테스트에서는 가짜 모델을 사용
+    interface Model {
+        // 입력의 batch 차원을 count로 바꿈. 지원하지 않으면 batch 1로 되돌리고 false
+        boolean resize(int count);
+
+        void run(ByteBuffer input, ByteBuffer output);
+    }
+
+    private final Model model;
+    private final int inputBytes, outputBytes;   // 한 장의 입출력 크기
+    private boolean resizable = true;            // 한 번 실패하면 다시 시도하지 않음
+    private int capacity = 0;
+    private ByteBuffer input;
+    private ByteBuffer output;
+    private ByteBuffer[] inputSlots;             // input에서 한 장에 해당하는 부분
+    private ByteBuffer[] outputSlots;
+    private FloatBuffer[] scoreSlots;
+
+    BatchBuffers(Model model, int inputBytes, int outputBytes) {
+        this.model = model;
+        this.inputBytes = inputBytes;
+        this.outputBytes = outputBytes;
+    }
+
+    // 한 번에 count장을 추론할 수 있도록 batch 차원과 버퍼를 늘림. 이미 충분하면 그대로 사용
+    // 다시 만들면 이전 자리 buffer는 더 이상 사용하지 않음
+    void ensureCapacity(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + count);
+        }
+        if (count <= capacity) {
+            return;
+        }
+        if (resizable && !model.resize(count)) {
+            resizable = false;
+        }
+        input = ByteBuffer.allocateDirect(inputBytes * count).order(ByteOrder.nativeOrder());
+        output = ByteBuffer.allocateDirect(outputBytes * count).order(ByteOrder.nativeOrder());
+        inputSlots = new ByteBuffer[count];
+        outputSlots = new ByteBuffer[count];
+        scoreSlots = new FloatBuffer[count];
+        for (int i = 0; i < count; i++) {
+            inputSlots[i] = slice(input, i * inputBytes, inputBytes);
+            outputSlots[i] = slice(output, i * outputBytes, outputBytes);
+            scoreSlots[i] = outputSlots[i].asFloatBuffer();
+        }
+        capacity = count;
+    }
+
+    // 앞의 count장을 추론. ensureCapacity(count)를 먼저 호출해야 함
+    void run(int count) {
+        if (count < 1 || count > capacity) {
+            throw new IllegalArgumentException("Batch capacity is " + capacity + ": " + count);
+        }
+        if (resizable) {
+            // 뒤쪽 자리에는 이전 입력이 남아 있지만 batch 차원을 바꾸는 것보다 쌈
+            input.rewind();
+            output.rewind();
+            model.run(input, output);
+        } else {
+            for (int i = 0; i < count; i++) {
+                inputSlots[i].rewind();
+                outputSlots[i].rewind();
+                model.run(inputSlots[i], outputSlots[i]);
+            }
+        }
+    }
+
+    ByteBuffer getInputSlot(int index) {
+        return inputSlots[index];
+    }
+
+    ByteBuffer getOutputSlot(int index) {
+        return outputSlots[index];
+    }
+
+    // float 모델일 때 출력 자리를 float로 읽기 위한 view
+    FloatBuffer getScoreSlot(int index) {
+        return scoreSlots[index];
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    boolean isResizable() {
+        return resizable;
+    }
+
+    // 입출력 버퍼 크기
+    long getBytes() {
+        return capacity == 0 ? 0 : (long) input.capacity() + output.capacity();
+    }
+
+    // slice()는 byte order를 big endian으로 되돌리므로 다시 지정
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset).limit(offset + length);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+}
@@ -20,6 +20,9 @@ import android.media.ImageReader;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Range;
 import android.util.Size;
 import android.view.LayoutInflater;
 import android.view.Surface;
@@ -33,12 +36,10 @@ import androidx.annotation.Nullable;
 import android.app.Fragment;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.Locale;
 
 
 // Fragment API 28에서 deprecated.
@@ -50,6 +51,10 @@ import java.util.concurrent.TimeUnit;
 public class CameraFragment extends Fragment {  // 새로운 API로 변경하거나
     public static final String TAG = "[IC]CameraFragment";
 
+    // 파이프라인이 이미지 하나를 변환하는 동안 다음 이미지를 대기시키고,
+    // 그 다음 이미지도 받을 수 있도록 기본 3장까지 사용
+    public static final int DEFAULT_MAX_IMAGES = 3;
+
     // Callback 이나 Listner 라는 용어
     // 이벤트가 발생했을 때 작업을 수행하기 위한 함수나 클래스, 인터페이스에 붙임
     // Listner: 자바에서 interface로 한정
@@ -59,6 +64,10 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
     private ImageReader.OnImageAvailableListener imageAvailableListener;
     private Size inputSize;                                                 //
     private String cameraId;                                                // 카메라 아이디. 0 후면, 1 전면 카메라
+    private int maxImages;                                                  // 분석용 ImageReader가 동시에 가질 수 있는 이미지 수
+    private CaptureProfile profile;                                         // frame rate, torch 등 캡처 요청 설정
+    private Range<Integer> fpsRange;                                        // 자동 노출이 맞출 frame rate 범위
+    private boolean flashAvailable;
 
     // 동영상 출력을 위한 사용자 정의 뷰
     private AutoFitTextureView autoFitTextureView = null;
@@ -69,17 +78,38 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
     // main Thread를 제외한 나머지 Thread에서 화면 갱신 불가
     // 거의 대다수의 GUI 시스템이 마찬가지.
     // 하나의 메소드 안에 출력을 여러번 하는 코드가 존재하면 모아서 한 번에 처리
+    // 분석용 이미지는 backgroundThread에서 받고, 카메라 열기, 세션 설정, 닫기는 cameraThread에서 함
+    // UI 스레드는 카메라 작업을 기다리지 않음. 두 스레드는 Fragment가 존재하는 동안 유지
     private HandlerThread backgroundThread = null;
     private Handler backgroundHandler = null;
+    private HandlerThread cameraThread = null;
+    private Handler cameraHandler = null;
+
+    // 카메라 상태. cameraThread에서만 읽고 바꿈
+    // CLOSED -> OPENING -> CONFIGURING -> STREAMING -> CLOSED
+    // 여는 중에 닫기를 요청하면 CLOSING이 되고, 열기가 끝나는 대로 닫음
+    private enum State { CLOSED, OPENING, CONFIGURING, STREAMING, CLOSING }
+    private State state = State.CLOSED;
+    // CLOSING 중에 들어온 열기 요청. 닫기가 끝나면 다시 엶
+    private boolean reopenRequested = false;
+    private int reopenWidth, reopenHeight;
+    // onDestroy 이후. 카메라가 CLOSED가 되면 스레드를 끝냄
+    private boolean destroyRequested = false;
+
+    // 파이프라인이 가진 이미지가 반납되기를 기다리는 최대 시간. 넘으면 그대로 ImageReader를 닫음
+    private static final long DRAIN_TIMEOUT_MS = 1000;
+
+    // onResume부터 첫 분석용 이미지를 받을 때까지 걸린 시간 측정
+    private volatile long resumeNs;
+    private volatile long openedNs;
+    private volatile long configuredNs;
+    private volatile boolean firstFramePending = false;
 
     // 미리보기 크기와 기기 방향을 저장할 변수
     private Size previewSize;
     private int sensorOrientation;
-
-    // Thread를 사용하기 때문에 멀티 Thread 환경에서
-    // 공유자원의 사용문제를 해결하기 위한 인스턴스
-    // 정수는 자원을 동시에 사용할 Thread의 개수
-    private final Semaphore cameraOpenCloseLock = new Semaphore(1);
+    // 분석용(YUV) 이미지 크기. 화면 미리보기와 따로 모델 입력 크기에 맞춰서 고름
+    private Size analysisSize;
 
     private CameraDevice cameraDevice;
     private CaptureRequest.Builder previewRequestBuilder;
@@ -91,11 +121,15 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
     private CameraFragment(final ConnectionCallback callback,
                            final ImageReader.OnImageAvailableListener imageAvailableListener,
                            final Size inputSize,
-                           final String cameraId) {
+                           final String cameraId,
+                           final int maxImages,
+                           final CaptureProfile profile) {
         this.connectionCallback = callback;
         this.imageAvailableListener = imageAvailableListener;
         this.inputSize = inputSize;
         this.cameraId = cameraId;
+        this.maxImages = maxImages;
+        this.profile = profile;
     }
 
     // 인스턴스를 생성해서 return해주는 static method - Factory pattern
@@ -109,7 +143,34 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
             final ImageReader.OnImageAvailableListener imageAvailableListener,
             final Size inputSize,
             final String cameraId) {
-        return new CameraFragment(callback, imageAvailableListener, inputSize, cameraId);
+        return newInstance(callback, imageAvailableListener, inputSize, cameraId,
+                DEFAULT_MAX_IMAGES);
+    }
+
+    // maxImages: 분석용 ImageReader의 이미지 수. acquireLatestImage()를 사용하므로 2 이상
+    public static CameraFragment newInstance(
+            final ConnectionCallback callback,
+            final ImageReader.OnImageAvailableListener imageAvailableListener,
+            final Size inputSize,
+            final String cameraId,
+            final int maxImages) {
+        return newInstance(callback, imageAvailableListener, inputSize, cameraId, maxImages,
+                new CaptureProfile());
+    }
+
+    // profile: frame rate, torch, template, 미리보기 사용 여부
+    public static CameraFragment newInstance(
+            final ConnectionCallback callback,
+            final ImageReader.OnImageAvailableListener imageAvailableListener,
+            final Size inputSize,
+            final String cameraId,
+            final int maxImages,
+            final CaptureProfile profile) {
+        if (maxImages < 2) {
+            throw new IllegalArgumentException("maxImages must be at least 2: " + maxImages);
+        }
+        return new CameraFragment(callback, imageAvailableListener, inputSize, cameraId,
+                maxImages, profile);
     }
 
     // 화면을 출력하기 위한 뷰를 만들 때 호출되는 메소드
@@ -125,48 +186,78 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         autoFitTextureView = view.findViewById(R.id.autoFitTextureView);
+        if (profile.isAnalysisOnly()) {
+            autoFitTextureView.setVisibility(View.GONE);
+        }
+    }
+
+    // Fragment가 만들어질 때 스레드 시작
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        startBackgroundThread();
     }
 
     // Activity나 Fragment가 화면에 보여질 때마다 호출되는 method
-    // Thread 시작
     // TextureView가 사용 가능하면 listener 설정, 그렇지 않으면 카메라 내용 출력
+    // 미리보기를 사용하지 않으면 TextureView를 기다리지 않고 바로 카메라를 염
     @Override
     public void onResume() {
         super.onResume();
-        startBackgroundThread();
+        resumeNs = SystemClock.elapsedRealtimeNanos();
 
-        if(!autoFitTextureView.isAvailable())
+        if (profile.isAnalysisOnly())
+            postOpenCamera(0, 0);
+        else if(!autoFitTextureView.isAvailable())
             autoFitTextureView.setSurfaceTextureListener(surfaceTextureListener);
         else
-            openCamera(autoFitTextureView.getWidth(), autoFitTextureView.getHeight());
+            postOpenCamera(autoFitTextureView.getWidth(), autoFitTextureView.getHeight());
     }
 
     // 출력이 중지될 때 호출되는 메소드
-    // 카메라를 닫고 스레드를 중지
+    // 카메라 닫기를 카메라 스레드에 요청만 하고 기다리지 않음
+    // 다시 onResume 되어도 열기 요청은 닫기가 끝난 뒤에 실행됨
     @Override
     public void onPause() {
-        closeCamera();
-        stopBackgroundThread();
+        cameraHandler.post(this::closeCamera);
         super.onPause();
     }
 
+    // 카메라가 완전히 닫힌 뒤에 스레드 종료
+    // 여는 중이면 onOpened가 와야 카메라를 닫을 수 있으므로 그때까지 스레드를 유지
+    @Override
+    public void onDestroy() {
+        cameraHandler.post(() -> {
+            destroyRequested = true;
+            reopenRequested = false;
+            stopBackgroundThreadIfClosed();
+        });
+        super.onDestroy();
+    }
+
     // 스레드를 생성해서 시작하는 메소드
     private void startBackgroundThread() {
         backgroundThread = new HandlerThread("ImageListener");
         backgroundThread.start();
         backgroundHandler = new Handler(backgroundThread.getLooper());
+        cameraThread = new HandlerThread("CameraThread");
+        cameraThread.start();
+        cameraHandler = new Handler(cameraThread.getLooper());
     }
 
-    // 스레드를 중지하는 메소드
-    private void stopBackgroundThread() {
-        backgroundThread.quitSafely();
-        try {
-            backgroundThread.join();
-            backgroundThread = null;
-            backgroundHandler = null;
-        } catch (final InterruptedException e) {
-            e.printStackTrace();
+    // 스레드를 중지하는 메소드. 카메라 스레드에서 호출
+    // onDestroy 이후에 카메라가 CLOSED이면 두 스레드를 끝냄
+    // 카메라가 닫히면 ImageReader 콜백이 더 오지 않으므로 이미지 스레드도 함께 끝낼 수 있음
+    private void stopBackgroundThreadIfClosed() {
+        if (!destroyRequested || state != State.CLOSED) {
+            return;
         }
+        backgroundThread.quitSafely();
+        cameraThread.quitSafely();
+    }
+
+    private void postOpenCamera(final int width, final int height) {
+        cameraHandler.post(() -> openCamera(width, height));
     }
 
     // TextureView의 리스너
@@ -177,7 +268,7 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
                 @Override
                 public void onSurfaceTextureAvailable(
                         final SurfaceTexture texture, final int width, final int height) {
-                    openCamera(width, height);
+                    postOpenCamera(width, height);
                 }
 
                 // 텍스쳐의 사이즈가 변경되면 호출되는 메소드
@@ -198,39 +289,54 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
                 }
             };
 
-    // 카메라를 사용할 수 있도록 헤주는 메소드
+    // 카메라를 사용할 수 있도록 헤주는 메소드. 카메라 스레드에서 호출
+    // 열기가 끝나면 stateCallback이 카메라 스레드에서 호출됨
     @SuppressLint("MissingPermission")
     private void openCamera(final int width, final int height) {
-
+        if (destroyRequested) {
+            return;
+        }
+        if (state == State.CLOSING) {
+            reopenRequested = true;
+            reopenWidth = width;
+            reopenHeight = height;
+            return;
+        }
+        if (state != State.CLOSED) {
+            Log.w(TAG, "openCamera() in state " + state);
+            return;
+        }
         // 카메라 사용 객체 찾아오기
         final Activity activity = getActivity();
+        if (activity == null) {
+            return;
+        }
         final CameraManager manager =
                 (CameraManager)activity.getSystemService(Context.CAMERA_SERVICE);
 
         // 카메라를 설정하고 크기를 정의하는 사용자 정의 메소드 호출
-        setupCameraOutputs(manager);
-        configureTransform(width, height);
+        // 크기를 정하지 못하면 열지 않고 CLOSED로 남음
+        if (!setupCameraOutputs(manager)) {
+            activity.runOnUiThread(() -> Toast.makeText(activity,
+                    "Camera configuration failed", Toast.LENGTH_SHORT).show());
+            stopBackgroundThreadIfClosed();
+            return;
+        }
+        activity.runOnUiThread(() -> configureTransform(width, height));
 
         try {
-            // 2.5초 동안 카메라를 가져오지 못하면 화면을 중지시켜버림.
-            if (!cameraOpenCloseLock.tryAcquire(2500, TimeUnit.MILLISECONDS)) {
-                Toast.makeText(getContext(),
-                        "Time out waiting to lock camera opening.",
-                        Toast.LENGTH_LONG).show();
-                activity.finish();
-            } else {
-                // 카메라를 사용
-                manager.openCamera(cameraId, stateCallback, backgroundHandler);
-//                manager.openCamera(cameraId, stateCallback, null);
-            }
-        } catch (final InterruptedException | CameraAccessException e) {
-            e.printStackTrace();
+            state = State.OPENING;
+            manager.openCamera(cameraId, stateCallback, cameraHandler);
+        } catch (final CameraAccessException | SecurityException e) {
+            Log.e(TAG, "Failed to open camera " + cameraId, e);
+            state = State.CLOSED;
         }
     }
 
     // 카메라 설정 메소드
     // 수정할 부분이 거의 없음
-    private void setupCameraOutputs(CameraManager manager) {
+    // 카메라 정보를 읽지 못하거나 맞는 크기가 없으면 false (onPreviewSizeChosen도 호출하지 않음)
+    private boolean setupCameraOutputs(CameraManager manager) {
         try {
             final CameraCharacteristics characteristics = manager.getCameraCharacteristics(cameraId);
 
@@ -239,28 +345,89 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
 
             sensorOrientation = characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION);
 
+            fpsRange = chooseFpsRange(characteristics.get(
+                    CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES),
+                    profile.getTargetFps());
+            final Boolean flash = characteristics.get(CameraCharacteristics.FLASH_INFO_AVAILABLE);
+            flashAvailable = flash != null && flash;
+            Log.i(TAG, "capture profile : " + profile + ", fps range : " + fpsRange
+                    + (profile.isTorch() && !flashAvailable ? ", no flash unit" : ""));
+
             previewSize = chooseOptimalSize(
                     map.getOutputSizes(SurfaceTexture.class),
                     inputSize.getWidth(),
                     inputSize.getHeight());
 
+            analysisSize = chooseAnalysisSize(
+                    map.getOutputSizes(ImageFormat.YUV_420_888), previewSize, inputSize);
+            // 미리보기와 같은 크기로 분석 이미지를 받을 때와 비교해서 줄어든 프레임당 데이터 크기
+            long previewBytes = CameraSizes.yuvFrameBytes(
+                    previewSize.getWidth(), previewSize.getHeight());
+            long analysisBytes = CameraSizes.yuvFrameBytes(
+                    analysisSize.getWidth(), analysisSize.getHeight());
+            Log.i(TAG, String.format(Locale.ENGLISH,
+                    "preview : %s, analysis : %s, %d KB/frame (saved %d KB/frame, %.0f%%)",
+                    previewSize, analysisSize, analysisBytes / 1024,
+                    (previewBytes - analysisBytes) / 1024,
+                    100.0 * (previewBytes - analysisBytes) / previewBytes));
+
+            // 미리보기를 출력하지 않으면 TextureView 비율은 설정하지 않음
+            // 뷰는 UI 스레드에서만 바꿀 수 있음
             final int orientation = getResources().getConfiguration().orientation;
-            if (orientation == Configuration.ORIENTATION_LANDSCAPE) {
-                autoFitTextureView.setAspectRatio(previewSize.getWidth(), previewSize.getHeight());
-            } else {
-                autoFitTextureView.setAspectRatio(previewSize.getHeight(), previewSize.getWidth());
+            final Size size = previewSize;
+            if (!profile.isAnalysisOnly()) {
+                autoFitTextureView.post(() -> {
+                    if (orientation == Configuration.ORIENTATION_LANDSCAPE) {
+                        autoFitTextureView.setAspectRatio(size.getWidth(), size.getHeight());
+                    } else {
+                        autoFitTextureView.setAspectRatio(size.getHeight(), size.getWidth());
+                    }
+                });
             }
-        } catch (final CameraAccessException cae) {
-            cae.printStackTrace();
+        } catch (final CameraAccessException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to choose output sizes for camera " + cameraId, e);
+            return false;
         }
 
-        connectionCallback.onPreviewSizeChosen(previewSize, sensorOrientation);
+        connectionCallback.onPreviewSizeChosen(analysisSize, sensorOrientation);
+        return true;
+    }
+
+    // 분석용 이미지 크기 선택
+    // 모델은 가운데 정사각형만 사용하므로 짧은 변이 모델 입력보다 크거나 같은 크기 중 가장 작은 것을 고름
+    // 미리보기와 비율이 같아야 화면에 보이는 부분과 분류하는 부분이 일치함
+    static Size chooseAnalysisSize(final Size[] choices, final Size previewSize,
+                                   final Size inputSize) {
+        final int[] widths = new int[choices.length];
+        final int[] heights = new int[choices.length];
+        for (int i = 0; i < choices.length; i++) {
+            widths[i] = choices[i].getWidth();
+            heights[i] = choices[i].getHeight();
+        }
+        final int minSide = Math.max(inputSize.getWidth(), inputSize.getHeight());
+        return choices[CameraSizes.chooseAnalysisSize(widths, heights, minSide,
+                previewSize.getWidth(), previewSize.getHeight())];
+    }
+
+    // 카메라가 지원하는 frame rate 범위 중 targetFps에 맞는 범위 선택. 정보가 없으면 null
+    static Range<Integer> chooseFpsRange(final Range<Integer>[] ranges, final int targetFps) {
+        if (ranges == null || ranges.length == 0) {
+            return null;
+        }
+        final int[] lowers = new int[ranges.length];
+        final int[] uppers = new int[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            lowers[i] = ranges[i].getLower();
+            uppers[i] = ranges[i].getUpper();
+        }
+        return ranges[CaptureProfile.chooseFpsRange(lowers, uppers, targetFps)];
     }
 
     // 회전 처리를 위한 메소드
     private void configureTransform(final int viewWidth, final int viewHeight) {
         final Activity activity = getActivity();
-        if (null == autoFitTextureView || null == previewSize || null == activity) {
+        if (null == autoFitTextureView || null == previewSize || null == activity
+                || profile.isAnalysisOnly()) {
             return;
         }
 
@@ -314,126 +481,223 @@ public class CameraFragment extends Fragment {  // 새로운 API로 변경하거
         }
     }
 
-    // 카메라의 상태가 변경될 때 호출되는 리스너
+    // 카메라의 상태가 변경될 때 호출되는 리스너. 카메라 스레드에서 호출됨
     private final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
         @Override
         public void onOpened(final CameraDevice cd) {
-            // Semaphore를 취득해서 lock 해제
-            cameraOpenCloseLock.release();
+            if (state != State.OPENING) {
+                // 여는 동안 닫기를 요청함
+                cd.close();
+                finishClosing();
+                return;
+            }
+            openedNs = SystemClock.elapsedRealtimeNanos();
             cameraDevice = cd;
+            state = State.CONFIGURING;
             createCameraPreviewSession();
         }
 
         @Override
         public void onDisconnected(final CameraDevice cd) {
-            cameraOpenCloseLock.release();
-            cd.close();
-            cameraDevice = null;
+            Log.w(TAG, "Camera " + cameraId + " disconnected in state " + state);
+            if (state == State.OPENING || state == State.CLOSING) {
+                cd.close();
+                finishClosing();
+            } else {
+                closeCamera();
+            }
         }
 
         @Override
         public void onError(final CameraDevice cd, final int error) {
-            cameraOpenCloseLock.release();
-            cd.close();
-            cameraDevice = null;
+            Log.e(TAG, "Camera " + cameraId + " error " + error + " in state " + state);
+            final boolean closing = state == State.CLOSING;
+            if (state == State.OPENING || state == State.CLOSING) {
+                cd.close();
+                finishClosing();
+            } else {
+                closeCamera();
+            }
             final Activity activity = getActivity();
-            if (null != activity) {
-                activity.finish();
+            if (null != activity && !closing) {
+                activity.runOnUiThread(activity::finish);
             }
         }
     };
 
     // 카메라 사용 권한을 취득하고 사용하기 직전에 카메라 호출
-    // 미리보기와 카메라에 관련된 설정을 수행
+    // 미리보기와 카메라에 관련된 설정을 수행. 카메라 스레드에서 호출
     private void createCameraPreviewSession() {
         try {
-            final SurfaceTexture texture = autoFitTextureView.getSurfaceTexture();
-            texture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
-
-            final Surface surface = new Surface(texture);
-
-            // 미리보기 포맷 설정
-            previewReader = ImageReader.newInstance(previewSize.getWidth(),
-                    previewSize.getHeight(), ImageFormat.YUV_420_888, 2);
-            previewReader.setOnImageAvailableListener(imageAvailableListener,
-                    backgroundHandler);
-
-            previewRequestBuilder = cameraDevice.createCaptureRequest(
-                    CameraDevice.TEMPLATE_PREVIEW);
-            previewRequestBuilder.addTarget(surface);
+            // 분석용 이미지 포맷 설정. 화면 미리보기보다 작은 크기로 받음
+            previewReader = ImageReader.newInstance(analysisSize.getWidth(),
+                    analysisSize.getHeight(), ImageFormat.YUV_420_888, maxImages);
+            previewReader.setOnImageAvailableListener(imageListener, backgroundHandler);
+
+            previewRequestBuilder = cameraDevice.createCaptureRequest(profile.getTemplate());
+            final List<Surface> outputs = new ArrayList<>();
+            // 미리보기를 사용하지 않으면 분석용 이미지만 받음
+            if (!profile.isAnalysisOnly()) {
+                final SurfaceTexture texture = autoFitTextureView.getSurfaceTexture();
+                if (texture == null) {
+                    // 그 사이에 TextureView가 사라짐
+                    closeCamera();
+                    return;
+                }
+                texture.setDefaultBufferSize(previewSize.getWidth(), previewSize.getHeight());
+                final Surface surface = new Surface(texture);
+                previewRequestBuilder.addTarget(surface);
+                outputs.add(surface);
+            }
             previewRequestBuilder.addTarget(previewReader.getSurface());
+            outputs.add(previewReader.getSurface());
 
             previewRequestBuilder.set(
                     CaptureRequest.CONTROL_AF_MODE,
                     CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+            // torch는 자동 노출이 플래시를 제어하지 않는 CONTROL_AE_MODE_ON 에서만 켜짐
             previewRequestBuilder.set(
                     CaptureRequest.CONTROL_AE_MODE,
-                    CaptureRequest.CONTROL_AE_MODE_ON_ALWAYS_FLASH);
+                    CaptureRequest.CONTROL_AE_MODE_ON);
             previewRequestBuilder.set(
                     CaptureRequest.FLASH_MODE,
-                    CameraMetadata.FLASH_MODE_TORCH);
+                    profile.isTorch() && flashAvailable
+                            ? CameraMetadata.FLASH_MODE_TORCH : CameraMetadata.FLASH_MODE_OFF);
+            // 추론이 받을 수 있는 만큼만 프레임을 만들도록 frame rate 제한
+            if (fpsRange != null) {
+                previewRequestBuilder.set(
+                        CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE, fpsRange);
+            }
 
             cameraDevice.createCaptureSession(
-                    Arrays.asList(surface, previewReader.getSurface()),
+                    outputs,
                     sessionStateCallback,
-                    null);
-        } catch (final CameraAccessException e) {
-            e.printStackTrace();
+                    cameraHandler);
+        } catch (final CameraAccessException | IllegalStateException e) {
+            Log.e(TAG, "Failed to create capture session", e);
+            closeCamera();
         }
     }
 
-    // 카메라 화면을 가져온 후 호출되는 리스너
+    // 첫 이미지가 들어오면 onResume부터 걸린 시간을 출력하고 넘겨받은 listener에 전달
+    private final ImageReader.OnImageAvailableListener imageListener =
+            new ImageReader.OnImageAvailableListener() {
+                @Override
+                public void onImageAvailable(final ImageReader reader) {
+                    if (firstFramePending) {
+                        firstFramePending = false;
+                        final long now = SystemClock.elapsedRealtimeNanos();
+                        Log.i(TAG, String.format(Locale.ENGLISH,
+                                "time to first frame : %.1f ms (open : %.1f ms, session : %.1f ms)",
+                                (now - resumeNs) / 1e6, (openedNs - resumeNs) / 1e6,
+                                (configuredNs - openedNs) / 1e6));
+                    }
+                    imageAvailableListener.onImageAvailable(reader);
+                }
+            };
+
+    // 카메라 화면을 가져온 후 호출되는 리스너. 카메라 스레드에서 호출됨
     private final CameraCaptureSession.StateCallback sessionStateCallback =
             new CameraCaptureSession.StateCallback() {
                 @Override
                 public void onConfigured(final CameraCaptureSession cameraCaptureSession) {
-                    if (null == cameraDevice) {
+                    if (state != State.CONFIGURING || null == cameraDevice) {
+                        // 설정하는 동안 카메라를 닫음
+                        cameraCaptureSession.close();
                         return;
                     }
 
                     captureSession = cameraCaptureSession;
                     try {
+                        configuredNs = SystemClock.elapsedRealtimeNanos();
+                        firstFramePending = true;
                         captureSession.setRepeatingRequest(previewRequestBuilder.build(),
-                                null, backgroundHandler);
-                    } catch (final CameraAccessException e) {
-                        e.printStackTrace();
+                                null, cameraHandler);
+                        state = State.STREAMING;
+                    } catch (final CameraAccessException | IllegalStateException e) {
+                        Log.e(TAG, "Failed to start capture", e);
+                        closeCamera();
                     }
                 }
 
                 @Override
                 public void onConfigureFailed(final CameraCaptureSession cameraCaptureSession) {
-                    Toast.makeText(getActivity(), "CameraCaptureSession Failed", Toast.LENGTH_SHORT).show();
+                    Log.e(TAG, "CameraCaptureSession failed in state " + state);
+                    closeCamera();
+                    final Activity activity = getActivity();
+                    if (null != activity) {
+                        activity.runOnUiThread(() -> Toast.makeText(activity,
+                                "CameraCaptureSession Failed", Toast.LENGTH_SHORT).show());
+                    }
                 }
             };
 
 
-    // 카메라 종료하는 메소드
-    // 이 메소드는 구현하지 않아도 App 자체에는 아무런 영향이 없음.
+    // 카메라 종료하는 메소드. 카메라 스레드에서 호출
+    // 세션과 카메라를 먼저 닫아서 새 이미지가 나오지 않게 한 뒤,
+    // 파이프라인이 잡고 있는 이미지가 반납되면 ImageReader를 닫음 (닫힌 이미지의 버퍼를 읽지 않도록)
     private void closeCamera() {
-        try {
-            cameraOpenCloseLock.acquire();
-            if (null != captureSession) {
-                captureSession.close();
-                captureSession = null;
-            }
-            if (null != cameraDevice) {
-                cameraDevice.close();
-                cameraDevice = null;
-            }
-            if (null != previewReader) {
-                previewReader.close();
-                previewReader = null;
+        if (state == State.OPENING) {
+            // 열기가 끝나면 onOpened에서 닫음
+            state = State.CLOSING;
+            return;
+        }
+        if (state == State.CLOSING) {
+            // 닫기를 기다리는 동안 들어온 열기 요청 취소
+            reopenRequested = false;
+            return;
+        }
+        if (state == State.CLOSED) {
+            return;
+        }
+        firstFramePending = false;
+        if (null != captureSession) {
+            try {
+                captureSession.stopRepeating();
+            } catch (final CameraAccessException | IllegalStateException e) {
+                // 이미 닫힌 세션
             }
-        } catch (final InterruptedException e) {
-            throw new RuntimeException("Interrupted while trying to lock camera closing.", e);
-        } finally {
-            cameraOpenCloseLock.release();
+            captureSession.close();
+            captureSession = null;
+        }
+        if (null != cameraDevice) {
+            cameraDevice.close();
+            cameraDevice = null;
         }
+        if (null != previewReader) {
+            connectionCallback.onCameraClosing(previewReader, DRAIN_TIMEOUT_MS);
+            previewReader.close();
+            connectionCallback.onCameraClosed(previewReader);
+            previewReader = null;
+        }
+        state = State.CLOSED;
+        stopBackgroundThreadIfClosed();
+    }
+
+    // 열기를 기다리던 카메라를 닫음. 그 사이에 열기를 요청했으면 다시 엶
+    private void finishClosing() {
+        state = State.CLOSED;
+        if (reopenRequested) {
+            reopenRequested = false;
+            openCamera(reopenWidth, reopenHeight);
+        }
+        stopBackgroundThreadIfClosed();
     }
 
 
     public interface ConnectionCallback {
+        // size는 분석용 이미지 크기 (processImage로 들어오는 이미지 크기)
+        // 카메라 스레드에서 호출됨
         void onPreviewSizeChosen(Size size, int cameraRotation);
+
+        // ImageReader를 닫기 직전에 카메라 스레드에서 호출됨
+        // 이 reader에서 받아서 아직 닫지 않은 이미지가 있으면 최대 timeoutMs 동안 반납을 기다려야 함
+        default void onCameraClosing(ImageReader reader, long timeoutMs) {
+        }
+
+        // ImageReader를 닫은 뒤에 카메라 스레드에서 호출됨
+        default void onCameraClosed(ImageReader reader) {
+        }
     }
 
     // 자바는 크기 비교를 할 때 숫자 데이터는 부등호로 하지만
@@ -0,0 +1,145 @@
+package com.example.realtimecamera;
+
+import android.media.Image;
+import android.media.ImageReader;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+// 카메라(ImageReader)에서 받는 프레임. CameraFragment에 OnImageAvailableListener로 넘겨서 사용
+// ImageReader가 가진 이미지 수만큼 SourceFrame을 만들어 두고 돌려쓰므로 프레임마다 할당하지 않음
+public class CameraFrameSource implements FrameSource, ImageReader.OnImageAvailableListener {
+
+    private final int frameCount;
+    private final ArrayDeque<CameraFrame> freeFrames;   // lock : freeFrames
+    private ImageReader closingReader;                  // 닫는 중인 ImageReader. lock : freeFrames
+    private volatile Listener listener;
+    private volatile int rotation = 0;
+
+    // maxImages는 ImageReader의 maxImages와 같은 값
+    public CameraFrameSource(int maxImages) {
+        frameCount = maxImages;
+        freeFrames = new ArrayDeque<>(maxImages);
+        for (int i = 0; i < maxImages; i++) {
+            freeFrames.add(new CameraFrame());
+        }
+    }
+
+    // 모델 입력에 적용할 회전. 카메라 설정이 끝나면 호출
+    public void setRotation(int rotation) {
+        this.rotation = rotation;
+    }
+
+    @Override
+    public void start(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void stop() {
+        listener = null;
+    }
+
+    // 카메라 스레드에서 호출됨. 가장 최근 이미지를 가져와서 listener에 넘기기만 함
+    @Override
+    public void onImageAvailable(ImageReader reader) {
+        final Listener current;
+        final CameraFrame frame;
+        synchronized (freeFrames) {
+            if (reader == closingReader) {
+                // 곧 닫힐 ImageReader. 남은 이미지는 reader.close()가 정리함
+                return;
+            }
+            final Image image;
+            try {
+                image = reader.acquireLatestImage();
+            } catch (final IllegalStateException e) {
+                // 파이프라인이 이미지를 모두 잡고 있는 경우. 이번 프레임은 건너뜀
+                return;
+            }
+            if (image == null) {
+                return;
+            }
+            current = listener;
+            frame = current == null ? null : freeFrames.poll();
+            if (frame == null) {
+                image.close();
+                return;
+            }
+            frame.set(image, rotation);
+        }
+        current.onFrame(frame);
+    }
+
+    // ImageReader를 닫기 전에 호출. reader에서 새 이미지는 더 받지 않고,
+    // 넘겨준 프레임이 모두 반납될 때까지 최대 timeoutMs 기다림. 시간 안에 모두 반납되면 true
+    public boolean drain(ImageReader reader, long timeoutMs) {
+        long deadlineNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (freeFrames) {
+            closingReader = reader;
+            while (freeFrames.size() < frameCount) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNs - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                try {
+                    freeFrames.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // drain()한 reader를 닫은 뒤에 호출. 닫힌 reader를 더 붙잡고 있지 않도록 지움
+    // (reader를 닫기 전에 지우면 그 사이에 가져간 이미지가 close()로 무효가 될 수 있음)
+    public void finishDrain(ImageReader reader) {
+        synchronized (freeFrames) {
+            if (closingReader == reader) {
+                closingReader = null;
+            }
+        }
+    }
+
+    // listener에 넘겨주고 아직 반납되지 않은 프레임 수
+    public int getOutstandingCount() {
+        synchronized (freeFrames) {
+            return frameCount - freeFrames.size();
+        }
+    }
+
+    private class CameraFrame implements SourceFrame {
+        private final YuvFrame yuv = new YuvFrame();
+        private Image image;
+        private int rotation;
+
+        CameraFrame set(Image image, int rotation) {
+            this.image = image;
+            this.rotation = rotation;
+            yuv.set(image);
+            return this;
+        }
+
+        @Override
+        public YuvFrame getYuv() {
+            return yuv;
+        }
+
+        @Override
+        public int getRotation() {
+            return rotation;
+        }
+
+        @Override
+        public void close() {
+            image.close();
+            image = null;
+            synchronized (freeFrames) {
+                freeFrames.add(this);
+                freeFrames.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.realtimecamera;
+
+// 카메라 출력 크기 선택에 사용하는 계산
+// android.util.Size 대신 가로, 세로 배열을 받으므로 JVM 테스트에서도 사용할 수 있음
+final class CameraSizes {
+
+    // 화면 비율이 같다고 보는 오차 (1%)
+    private static final int ASPECT_TOLERANCE_PERCENT = 1;
+
+    private CameraSizes() {
+    }
+
+    // 분석용(YUV_420_888) 스트림 크기를 고르고 그 index를 리턴
+    // 가운데 정사각형을 잘라서 모델 입력으로 줄이므로 짧은 변이 minSide 이상이면 충분함
+    // 1. 미리보기와 비율이 같고 짧은 변이 minSide 이상인 크기 중 가장 작은 것
+    // 2. 비율이 같은 크기가 없으면 비율과 상관없이 짧은 변이 minSide 이상인 크기 중 가장 작은 것
+    // 3. 모두 작으면 가장 큰 것
+    static int chooseAnalysisSize(int[] widths, int[] heights, int minSide,
+                                  int aspectWidth, int aspectHeight) {
+        if (widths.length == 0 || widths.length != heights.length) {
+            throw new IllegalArgumentException("No output sizes.");
+        }
+        int bestSameAspect = -1;
+        int bestAnyAspect = -1;
+        int largest = 0;
+        for (int i = 0; i < widths.length; i++) {
+            long area = (long) widths[i] * heights[i];
+            if (area > (long) widths[largest] * heights[largest]) {
+                largest = i;
+            }
+            if (Math.min(widths[i], heights[i]) < minSide) {
+                continue;
+            }
+            if (bestAnyAspect < 0 || area < (long) widths[bestAnyAspect] * heights[bestAnyAspect]) {
+                bestAnyAspect = i;
+            }
+            if (sameAspect(widths[i], heights[i], aspectWidth, aspectHeight)
+                    && (bestSameAspect < 0
+                    || area < (long) widths[bestSameAspect] * heights[bestSameAspect])) {
+                bestSameAspect = i;
+            }
+        }
+        if (bestSameAspect >= 0) {
+            return bestSameAspect;
+        }
+        return bestAnyAspect >= 0 ? bestAnyAspect : largest;
+    }
+
+    // width : height 와 aspectWidth : aspectHeight 가 오차 안에서 같은지
+    static boolean sameAspect(int width, int height, int aspectWidth, int aspectHeight) {
+        long difference = Math.abs((long) width * aspectHeight - (long) height * aspectWidth);
+        return difference * 100 <= (long) height * aspectWidth * ASPECT_TOLERANCE_PERCENT;
+    }
+
+    // YUV_420_888 프레임 한 장의 크기 (Y 한 장 + U, V 각각 1/4)
+    static long yuvFrameBytes(int width, int height) {
+        return (long) width * height * 3 / 2;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.realtimecamera;
+
+import android.hardware.camera2.CameraDevice;
+
+// 카메라 캡처 요청 설정. CameraFragment.newInstance()에 넘김
+// 기본값은 추론이 받을 수 있는 만큼만 프레임을 만들도록 15 fps, torch 끔, TEMPLATE_PREVIEW
+// 센서가 버려질 프레임을 만들지 않으면 전력 소모와 발열이 줄어듦
+public class CaptureProfile {
+
+    public static final int DEFAULT_TARGET_FPS = 15;
+
+    int targetFps = DEFAULT_TARGET_FPS;
+    boolean torch = false;
+    int template = CameraDevice.TEMPLATE_PREVIEW;
+    boolean analysisOnly = false;
+
+    // 자동 노출이 맞출 최대 frame rate. 가능한 범위 중 이 값 이상이면서 가장 낮은 범위를 사용
+    public CaptureProfile setTargetFps(int targetFps) {
+        if (targetFps < 1) {
+            throw new IllegalArgumentException("Target fps must be positive: " + targetFps);
+        }
+        this.targetFps = targetFps;
+        return this;
+    }
+
+    public CaptureProfile setTorch(boolean torch) {
+        this.torch = torch;
+        return this;
+    }
+
+    // CameraDevice.TEMPLATE_PREVIEW 또는 TEMPLATE_RECORD
+    // TEMPLATE_RECORD는 frame rate를 더 일정하게 유지하는 대신 어두운 곳에서 노출이 짧음
+    public CaptureProfile setTemplate(int template) {
+        if (template != CameraDevice.TEMPLATE_PREVIEW && template != CameraDevice.TEMPLATE_RECORD) {
+            throw new IllegalArgumentException("Unsupported template: " + template);
+        }
+        this.template = template;
+        return this;
+    }
+
+    // 화면 미리보기(TextureView) 없이 분석용 이미지만 받음. 화면이 필요 없는 키오스크 등에서 사용
+    public CaptureProfile setAnalysisOnly(boolean analysisOnly) {
+        this.analysisOnly = analysisOnly;
+        return this;
+    }
+
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    public boolean isTorch() {
+        return torch;
+    }
+
+    public int getTemplate() {
+        return template;
+    }
+
+    public boolean isAnalysisOnly() {
+        return analysisOnly;
+    }
+
+    // CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES 중 사용할 범위의 index
+    // 1. 최대값이 targetFps 이상인 범위 중 최대값이 가장 작은 것
+    //    최대값이 같으면 최소값이 낮은 것 (어두운 곳에서 노출 시간을 늘릴 수 있음)
+    // 2. 모두 targetFps보다 느리면 최대값이 가장 큰 것
+    // android.util.Range 대신 배열을 받으므로 JVM 테스트에서도 사용할 수 있음
+    static int chooseFpsRange(int[] lowers, int[] uppers, int targetFps) {
+        if (lowers.length == 0 || lowers.length != uppers.length) {
+            throw new IllegalArgumentException("No fps ranges.");
+        }
+        int best = -1;
+        int fastest = 0;
+        for (int i = 0; i < uppers.length; i++) {
+            if (uppers[i] > uppers[fastest]
+                    || (uppers[i] == uppers[fastest] && lowers[i] < lowers[fastest])) {
+                fastest = i;
+            }
+            if (uppers[i] < targetFps) {
+                continue;
+            }
+            if (best < 0 || uppers[i] < uppers[best]
+                    || (uppers[i] == uppers[best] && lowers[i] < lowers[best])) {
+                best = i;
+            }
+        }
+        return best >= 0 ? best : fastest;
+    }
+
+    @Override
+    public String toString() {
+        return "target " + targetFps + " fps, torch " + (torch ? "on" : "off")
+                + ", template " + (template == CameraDevice.TEMPLATE_RECORD ? "record" : "preview")
+                + (analysisOnly ? ", analysis only" : "");
+    }
+}
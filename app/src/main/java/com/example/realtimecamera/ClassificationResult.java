@@ -0,0 +1,50 @@
+package com.example.realtimecamera;
+
+// 추론 결과 상위 K개를 담는 클래스
+// 프레임마다 새로 만들지 않고 호출하는 쪽에서 만들어 둔 객체를 재사용
+// 점수가 높은 순서대로 저장됨
+public class ClassificationResult {
+
+    final int[] indices;
+    final float[] scores;
+    final String[] labels;
+    int count;
+
+    public ClassificationResult(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        indices = new int[capacity];
+        scores = new float[capacity];
+        labels = new String[capacity];
+    }
+
+    public int getCapacity() {
+        return indices.length;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getIndex(int rank) {
+        return indices[rank];
+    }
+
+    public float getScore(int rank) {
+        return scores[rank];
+    }
+
+    public String getLabel(int rank) {
+        return labels[rank];
+    }
+
+    // 다른 결과의 내용을 복사. 배열은 새로 만들지 않음
+    public void copyFrom(ClassificationResult other) {
+        int n = Math.min(other.count, getCapacity());
+        System.arraycopy(other.indices, 0, indices, 0, n);
+        System.arraycopy(other.scores, 0, scores, 0, n);
+        System.arraycopy(other.labels, 0, labels, 0, n);
+        count = n;
+    }
+}
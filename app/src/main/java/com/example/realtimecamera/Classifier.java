@@ -1,54 +1,144 @@
 package com.example.realtimecamera;
 
-import static org.tensorflow.lite.support.image.ops.ResizeOp.ResizeMethod.NEAREST_NEIGHBOR;
-
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
+import android.util.Log;
 import android.util.Pair;
 import android.util.Size;
 
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
 import org.tensorflow.lite.Tensor;
-import org.tensorflow.lite.support.common.FileUtil;
-import org.tensorflow.lite.support.common.ops.NormalizeOp;
-import org.tensorflow.lite.support.image.ImageProcessor;
-import org.tensorflow.lite.support.image.TensorImage;
-import org.tensorflow.lite.support.image.ops.ResizeOp;
-import org.tensorflow.lite.support.image.ops.ResizeWithCropOrPadOp;
-import org.tensorflow.lite.support.image.ops.Rot90Op;
-import org.tensorflow.lite.support.label.TensorLabel;
-import org.tensorflow.lite.support.model.Model;
-import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
 
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
 
 public class Classifier {
+    public static final String TAG = "[IC]Classifier";
+
+    // 중간 tensor arena 크기 추정에 사용. estimateInterpreterBytes() 참고
+    static final int ARENA_INPUT_MULTIPLE = 10;
 
     // 변수 선언
     private static final String MODEL_NAME = "mobilenet_imagenet_model.tflite";
     private static final String LABEL_FILE = "labels.txt";
+    // 기본 모델
+    public static final ModelSpec DEFAULT_MODEL =
+            new ModelSpec("mobilenet", MODEL_NAME, LABEL_FILE);
 
     Context context;
-    Model model;
+    final ModelSpec spec;
+    Options options;
+    Interpreter interpreter;
+    private NnApiDelegate nnApiDelegate;
+    private String backend = "";     // 실제로 사용 중인 실행 방식 (NNAPI, XNNPACK, CPU)
+    private int numThreads;          // 현재 추론 스레드 수
     int modelInputWidth, modelInputHeight, modelInputChannel;
-    TensorImage inputImage;
-    TensorBuffer outputBuffer;
-    private List<String> labels;
+    private ByteBuffer modelBuffer;  // 배치용 Interpreter를 만들 때 다시 사용
+    DataType inputDataType;
+    float inputScale;                // quantized 모델의 입력 변환 값
+    int inputZeroPoint;
+    ByteBuffer inputBuffer;          // 전처리가 끝난 입력 데이터
+    ByteBuffer outputBuffer;         // 추론 결과
+    FloatBuffer outputScores;        // float 모델일 때 outputBuffer를 float로 읽기 위한 view
+    DataType outputDataType;
+    float outputScale;               // quantized 모델의 출력 변환 값
+    int outputZeroPoint;
+    int numClasses;
+    private final ClassificationResult top1 = new ClassificationResult(1);
+    private int[] argbPixels;        // Bitmap 픽셀을 읽어올 버퍼. 이미지 크기가 바뀔 때만 새로 할당
+    private final ArgbToTensorConverter argbToTensorConverter = new ArgbToTensorConverter();
+    private final YuvToTensorConverter yuvToTensorConverter = new YuvToTensorConverter();
+    private LabelTable labels;
     private boolean isInitialized = false;
+    private PipelineMetrics metrics;  // 단계별 시간 측정. null이면 측정하지 않음
+
+    // 배치 추론용. 한 번에 추론하는 프레임 수가 바뀔 때만 입력 크기를 바꾸고 버퍼를 다시 만듦
+    // 배치용 Interpreter는 따로 만들므로 메모리 사용량(getInterpreterBytes())에 더함
+    private Interpreter batchInterpreter;
+    private boolean batchRepacksWeights;     // 배치용 Interpreter가 XNNPACK으로 실행되는지 여부
+    private BatchBuffers batch;
+    // 배치의 자리마다 converter를 따로 두어서, 같은 영역을 계속 분류할 때 sampler를 다시 만들지 않음
+    private YuvToTensorConverter[] batchYuvConverters = new YuvToTensorConverter[0];
+    private ArgbToTensorConverter[] batchArgbConverters = new ArgbToTensorConverter[0];
 
     // 생성자
     public Classifier(Context context) {
+        this(context, new Options());
+    }
+
+    public Classifier(Context context, Options options) {
+        this(context, DEFAULT_MODEL, options);
+    }
+
+    public Classifier(Context context, ModelSpec spec, Options options) {
         this.context = context;
+        this.spec = spec;
+        this.options = options;
     }
 
-    // 초기화 메소드
+    // 초기화 메소드. 시간이 걸리므로 UI 스레드가 아닌 곳에서 호출
     public void init() throws IOException {
-        model = Model.createModel(context, MODEL_NAME);      // 모델 생성
-        initModelShape();                                    // 입출력 관련 데이터 설정 메소드 호출
-        labels = FileUtil.loadLabels(context, LABEL_FILE);   // 레이블 파일 내용 읽어옴
+        long startNs = System.nanoTime();
+        modelBuffer = mapAsset(context, spec.modelFile);     // 모델 파일을 힙에 복사하지 않고 mmap
+        long mappedNs = System.nanoTime();
+        // 레이블을 먼저 읽어서 실패해도 Interpreter나 delegate가 남지 않도록 함
+        try (InputStream input = context.getAssets().open(spec.labelFile)) {
+            labels = LabelTable.read(input);                 // 레이블 파일 내용 읽어옴
+        }
+        long labelsNs = System.nanoTime();
+        numThreads = options.numThreads;
+        interpreter = createInterpreter(modelBuffer);        // 모델 생성
+        try {
+            initModelShape();                                // 입출력 관련 데이터 설정 메소드 호출
+        } catch (RuntimeException e) {
+            finish();                                        // 지원하지 않는 모델이면 바로 정리
+            throw e;
+        }
+        long interpreterNs = System.nanoTime();
         isInitialized = true;                                // 초기화 수행했으니 상태 업데이트
+        Log.d(TAG, String.format(Locale.ENGLISH,
+                "init %s - map : %.1f ms, labels : %.1f ms, interpreter : %.1f ms",
+                spec.name, (mappedNs - startNs) / 1e6, (labelsNs - mappedNs) / 1e6,
+                (interpreterNs - labelsNs) / 1e6));
+    }
+
+    // 같은 모델로 Interpreter와 입출력 버퍼만 따로 가진 Classifier를 하나 더 만듦
+    // mmap한 모델 파일과 레이블은 공유하므로 모델을 다시 읽지 않음. 여러 스레드에서 동시에 추론할 때 사용
+    public Classifier newReplica() {
+        if (!isInitialized) {
+            throw new IllegalStateException("Classifier is not initialized.");
+        }
+        Classifier replica = new Classifier(context, spec, options);
+        replica.modelBuffer = modelBuffer;
+        replica.numThreads = numThreads;                     // setNumThreads()로 바꾼 값도 그대로 따름
+        replica.interpreter = replica.createInterpreter(modelBuffer);
+        replica.initModelShape();
+        replica.labels = labels;
+        replica.metrics = metrics;
+        replica.isInitialized = true;
+        return replica;
+    }
+
+    // assets 안의 파일을 mmap. 압축되지 않은 채로 apk에 들어 있어야 함 (build.gradle의 noCompress)
+    static MappedByteBuffer mapAsset(Context context, String fileName) throws IOException {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(fileName);
+             FileInputStream input = new FileInputStream(fd.getFileDescriptor());
+             FileChannel channel = input.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY,
+                    fd.getStartOffset(), fd.getDeclaredLength());
+        }
     }
 
     // 초기화 상태 확인 메소드. a Getter.
@@ -56,17 +146,176 @@ public class Classifier {
         return isInitialized;
     }
 
+    public String getBackend() {
+        return backend;
+    }
+
+    public ModelSpec getSpec() {
+        return spec;
+    }
+
+    // 대략적인 메모리 사용량. 모델 파일, 레이블, 입출력 버퍼와 Interpreter 추정값의 합
+    public long getFootprintBytes() {
+        if (!isInitialized) {
+            return 0;
+        }
+        return (long) modelBuffer.capacity() + labels.getFootprintBytes() + getBufferBytes()
+                + getInterpreterBytes();
+    }
+
+    // Interpreter가 모델 파일 외에 따로 사용하는 메모리 추정값 (newReplica()로 만든 Classifier도 각자 가짐)
+    // Java API로는 실제 값을 알 수 없으므로 estimateInterpreterBytes()로 추정
+    long getInterpreterBytes() {
+        if (!isInitialized) {
+            return 0;
+        }
+        long bytes = estimateInterpreterBytes(modelBuffer.capacity(), inputBuffer.capacity(),
+                !"CPU".equals(backend));
+        if (batchInterpreter != null) {
+            // 배치 Interpreter의 arena는 batch 차원만큼 커짐 (지원하지 않으면 batch 1)
+            int batchSize = batch.isResizable() ? Math.max(1, batch.getCapacity()) : 1;
+            bytes += estimateInterpreterBytes(modelBuffer.capacity(),
+                    (long) inputBuffer.capacity() * batchSize,
+                    batchRepacksWeights);
+        }
+        return bytes;
+    }
+
+    // - 중간 tensor arena : 입력 tensor 크기의 ARENA_INPUT_MULTIPLE배
+    //   (MobileNet 계열은 앞쪽 layer의 activation 두 개가 입력의 10배 정도)
+    // - XNNPACK, NNAPI는 생성할 때 가중치를 자기 형식으로 다시 만들어 두므로 모델 크기만큼 더함
+    //   (기본 CPU 실행은 mmap한 가중치를 그대로 읽음)
+    static long estimateInterpreterBytes(long modelBytes, long inputBytes,
+                                         boolean repacksWeights) {
+        return ARENA_INPUT_MULTIPLE * inputBytes + (repacksWeights ? modelBytes : 0);
+    }
+
+    // 이 Classifier만 가지고 있는 입출력 버퍼 크기 (newReplica()로 만든 Classifier의 추가 메모리)
+    long getBufferBytes() {
+        if (!isInitialized) {
+            return 0;
+        }
+        long bytes = (long) inputBuffer.capacity() + outputBuffer.capacity();
+        if (batch != null) {
+            bytes += batch.getBytes();
+        }
+        return bytes;
+    }
+
+    // 추론 스레드 수 변경. 추론하는 스레드에서 호출해야 함
+    // XNNPACK delegate는 생성할 때 스레드 수가 정해지므로 Interpreter를 새로 만듦
+    // (모델 준비를 다시 하므로 수십~수백 ms 걸림. 발열 단계처럼 가끔 바뀌는 값으로만 호출)
+    // 배치용 Interpreter는 닫아 두고 다음 배치 추론 때 새 스레드 수로 다시 만듦
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive.");
+        }
+        if (interpreter == null || numThreads == this.numThreads) {
+            return;
+        }
+        long startNs = System.nanoTime();
+        interpreter.close();
+        closeDelegate();
+        closeBatchInterpreter();
+        this.numThreads = numThreads;
+        interpreter = createInterpreter(modelBuffer);
+        Log.d(TAG, String.format(Locale.ENGLISH, "%s : %d threads, rebuilt in %.1f ms",
+                spec.name, numThreads, (System.nanoTime() - startNs) / 1e6));
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void record(PipelineMetrics.Metric metric, long startNs) {
+        if (metrics != null) {
+            metrics.record(metric, System.nanoTime() - startNs);
+        }
+    }
+
+    // 옵션에 맞게 Interpreter 생성
+    // delegate(NNAPI, XNNPACK)를 사용할 수 없는 기기면 기본 CPU 실행으로 다시 생성
+    private Interpreter createInterpreter(ByteBuffer modelBuffer) {
+        if (options.useNnapi || options.useXnnpack) {
+            Interpreter.Options interpreterOptions = options.toInterpreterOptions(numThreads);
+            try {
+                if (options.useNnapi) {
+                    nnApiDelegate = new NnApiDelegate();
+                    interpreterOptions.addDelegate(nnApiDelegate);
+                }
+                Interpreter delegated = new Interpreter(modelBuffer, interpreterOptions);
+                backend = options.useNnapi ? "NNAPI" : "XNNPACK";
+                return delegated;
+            } catch (RuntimeException | UnsatisfiedLinkError e) {
+                Log.w(TAG, "Failed to apply delegate, falling back to CPU", e);
+                closeDelegate();
+            }
+        }
+        backend = "CPU";
+        return new Interpreter(modelBuffer,
+                options.toInterpreterOptions(numThreads).setUseXNNPACK(false));
+    }
+
+    private void closeDelegate() {
+        if (nnApiDelegate != null) {
+            nnApiDelegate.close();
+            nnApiDelegate = null;
+        }
+    }
+
     // 입출력 정보 설정 메소드
     private void initModelShape() {
-        Tensor inputTensor = model.getInputTensor(0);       // 모델 입력 데이터 정보 가져옴
-        int[] shape = inputTensor.shape();
-        modelInputChannel = shape[0];
-        modelInputWidth = shape[1];
-        modelInputHeight = shape[2];
-        inputImage = new TensorImage(inputTensor.dataType());               // 입력 데이터 모양 설정
-        Tensor outputTensor = model.getOutputTensor(0);
-        outputBuffer = TensorBuffer.createFixedSize(outputTensor.shape(),   // 출력 데이터 모양 설정
-                outputTensor.dataType());
+        Tensor inputTensor = interpreter.getInputTensor(0);       // 모델 입력 데이터 정보 가져옴
+        int[] shape = inputTensor.shape();                   // [batch, height, width, channel]
+        modelInputHeight = shape[1];
+        modelInputWidth = shape[2];
+        modelInputChannel = shape[3];
+        inputDataType = inputTensor.dataType();                             // 입력 데이터 모양 설정
+        inputScale = inputTensor.quantizationParams().getScale();
+        inputZeroPoint = inputTensor.quantizationParams().getZeroPoint();
+        inputBuffer = ByteBuffer.allocateDirect(inputTensor.numBytes())
+                .order(ByteOrder.nativeOrder());
+        Tensor outputTensor = interpreter.getOutputTensor(0);                     // 출력 데이터 모양 설정
+        outputDataType = outputTensor.dataType();
+        outputScale = outputTensor.quantizationParams().getScale();
+        outputZeroPoint = outputTensor.quantizationParams().getZeroPoint();
+        numClasses = outputTensor.numElements();
+        outputBuffer = ByteBuffer.allocateDirect(outputTensor.numBytes())
+                .order(ByteOrder.nativeOrder());
+        outputScores = outputBuffer.asFloatBuffer();
+
+        // float 모델과 quantized(uint8, int8) 모델을 모두 지원
+        // quantized 입력은 0~1로 정규화한 값을 입력 텐서의 scale, zero point로 변환하고,
+        // 출력은 상위 K개만 float로 변환
+        YuvToTensorConverter.checkInputType(inputDataType);
+        if (inputDataType != DataType.FLOAT32) {
+            if (!(inputScale > 0)) {
+                throw new IllegalArgumentException(
+                        "Quantized input has no quantization parameters: " + inputDataType);
+            }
+            yuvToTensorConverter.setInputQuantization(inputScale, inputZeroPoint);
+            argbToTensorConverter.setInputQuantization(inputScale, inputZeroPoint);
+        }
+        if (outputDataType != DataType.FLOAT32 && outputDataType != DataType.UINT8
+                && outputDataType != DataType.INT8) {
+            throw new IllegalArgumentException("Unsupported output type: " + outputDataType);
+        }
+        Log.d(TAG, "input : " + inputDataType + " " + Arrays.toString(shape)
+                + " (scale " + inputScale + ", zero point " + inputZeroPoint + ")"
+                + ", output : " + outputDataType + " (scale " + outputScale
+                + ", zero point " + outputZeroPoint + ")");
+    }
+
+    public LabelTable getLabels() {
+        return labels;
+    }
+
+    public int getNumClasses() {
+        return numClasses;
     }
 
     public Size getModelInputSize() {
@@ -76,73 +325,322 @@ public class Classifier {
     }
 
 
-    private Bitmap convertBitmapToARGB8888(Bitmap bitmap) {
-        return bitmap.copy(Bitmap.Config.ARGB_8888,true);
+    // 안드로이드 카메라로 촬영한 이미지를 추론에 맞는 형태로 변환하는 메소드
+    // 이미지 전처리
+    // 1. 이미지 확대 축소 - 논문을 읽어서 정/직사각형인지에 따라 다름. 직사각형은 처리 불필요.
+    // 2. 이미지 사이즈 조정
+    // 3. 회전
+    // 4. 정규화 - 전이학습을 하려면 논문을 꼭(!) 읽어보세요.
+    // 전처리 과정은 ArgbToTensorConverter에 미리 계산해 두고 재사용
+    // (이미지 크기나 기기 방향이 바뀌면 다시 계산)
+    private ByteBuffer loadImage(final Bitmap bitmap, int sensorOrientation) {
+        long startNs = System.nanoTime();
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        readPixels(bitmap);
+        argbToTensorConverter.convert(argbPixels, width, height, sensorOrientation / 90,
+                modelInputWidth, modelInputHeight,
+                inputDataType, inputBuffer);
+        record(PipelineMetrics.Metric.PREPROCESS, startNs);
+        return inputBuffer;
     }
 
-    // 안드로이드 카메라로 촬영한 이미지를 추론에 맞는 형태로 변환하는 메소드
-    private TensorImage loadImage(final Bitmap bitmap, int sensorOrientation) {
-        if(bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
-            inputImage.load(convertBitmapToARGB8888(bitmap));
-        } else {
-            inputImage.load(bitmap);
+    // getPixels는 ARGB_8888이 아니어도 ARGB로 읽어오므로 Bitmap을 복사할 필요 없음
+    private void readPixels(Bitmap bitmap) {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (argbPixels == null || argbPixels.length != width * height) {
+            argbPixels = new int[width * height];
         }
-        int cropSize = Math.min(bitmap.getWidth(), bitmap.getHeight());     // 자를 이미지 크기 설정. min(작은 크기)은 이미지를 정사각형으로 만들 때 쓰임.
-        int numRotation = sensorOrientation / 90;                           // 회전 처리
-
-        // 이미지 전처리
-        // 1. 이미지 확대 축소 - 논문을 읽어서 정/직사각형인지에 따라 다름. 직사각형은 처리 불필요.
-        // 2. 이미지 사이즈 조정
-        // 3. 회전
-        // 4. 정규화 - 전이학습을 하려면 논문을 꼭(!) 읽어보세요.
-
-        ImageProcessor imageProcessor = new ImageProcessor.Builder()
-                .add(new ResizeWithCropOrPadOp(cropSize, cropSize))
-                .add(new ResizeOp(modelInputWidth, modelInputHeight, NEAREST_NEIGHBOR))
-                .add(new Rot90Op(numRotation))
-                .add(new NormalizeOp(0.0f, 255.0f))
-                .build();
-        return imageProcessor.process(inputImage);
+        bitmap.getPixels(argbPixels, 0, width, 0, 0, width, height);
     }
 
     // 추론 메소드
     public Pair<String, Float> classify(Bitmap image, int sensorOrientation) {
-        inputImage = loadImage(image, sensorOrientation);                      // 입력 데이터 생성
-        Object[] inputs = new Object[]{inputImage.getBuffer()};
-        Map<Integer, Object> outputs = new HashMap();
-        outputs.put(0, outputBuffer.getBuffer().rewind());
-        model.run(inputs, outputs);                                            // 추론
-        Map<String, Float> output =                                            // 추론 결과 저장
-                new TensorLabel(labels, outputBuffer).getMapWithFloatValue();  // 추론 결과를 해석하는 메소드를 호출해서
-        return argmax(output);
+        classifyTopK(image, sensorOrientation, 1, top1);
+        return new Pair<>(top1.getLabel(0), top1.getScore(0));
     }
 
-    // 기기 방향이 없을 때 추론
-    public Pair<String, Float> classify(Bitmap image) {
-        return classify(image, 0);
+    // 카메라의 YUV 프레임을 Bitmap으로 바꾸지 않고 입력 데이터로 바로 변환해서 추론
+    public Pair<String, Float> classify(YuvFrame frame, int sensorOrientation) {
+        classifyTopK(frame, sensorOrientation, 1, top1);
+        return new Pair<>(top1.getLabel(0), top1.getScore(0));
+    }
+
+    // 상위 k개의 결과를 result에 저장. result는 호출하는 쪽에서 만들어 재사용
+    public void classifyTopK(Bitmap image, int sensorOrientation,
+                             int k, ClassificationResult result) {
+        run(loadImage(image, sensorOrientation));                              // 입력 데이터 생성
+        decode(k, result);
+    }
+
+    public void classifyTopK(YuvFrame frame, int sensorOrientation,
+                             int k, ClassificationResult result) {
+        preprocess(frame, sensorOrientation, inputBuffer);
+        classifyTopK(inputBuffer, k, result);
+    }
+
+    // 전처리와 추론을 다른 스레드에서 나눠서 실행할 때 사용
+    // preprocess()는 한 스레드에서만, classifyTopK()는 다른 한 스레드에서만 호출해야 함
+    public void preprocess(YuvFrame frame, int sensorOrientation, ByteBuffer input) {
+        long startNs = System.nanoTime();
+        yuvToTensorConverter.convert(frame, sensorOrientation / 90,
+                modelInputWidth, modelInputHeight,
+                inputDataType, input);
+        record(PipelineMetrics.Metric.CONVERT, startNs);
+    }
+
+    // 이미 전처리된 입력 데이터로 추론
+    public void classifyTopK(ByteBuffer input, int k, ClassificationResult result) {
+        run(input);
+        decode(k, result);
+    }
+
+    // 모델 입력 크기에 맞는 입력 버퍼 생성
+    public ByteBuffer newInputBuffer() {
+        return ByteBuffer.allocateDirect(inputBuffer.capacity())
+                .order(ByteOrder.nativeOrder());
+    }
+
+    private void run(ByteBuffer input) {
+        long startNs = System.nanoTime();
+        outputBuffer.rewind();
+        interpreter.run(input, outputBuffer);                                  // 추론
+        record(PipelineMetrics.Metric.INFERENCE, startNs);
     }
 
     // 추론 결과 해석
     // 추론하면 클래스의 레이블이 리턴되지 않고 인덱스가 리턴되므로
-    // 인덱스를 ㅔㄹ이블로 변경하고 가장 확률이 높은 데이터만 추출
-    private Pair<String, Float> argmax(Map<String, Float> map) {
-        String maxKey = "";
-        float maxVal = -1;
-        for(Map.Entry<String, Float> entry : map.entrySet()) {
-            float f = entry.getValue();
-            if(f > maxVal) {
-                maxKey = entry.getKey();
-                maxVal = f;
+    // 점수가 높은 k개만 골라서 그 인덱스만 레이블로 변경
+    private void decode(int k, ClassificationResult result) {
+        long startNs = System.nanoTime();
+        decode(outputBuffer, outputScores, k, result);
+        record(PipelineMetrics.Metric.DECODE, startNs);
+    }
+
+    private void decode(ByteBuffer output, FloatBuffer scores, int k,
+                        ClassificationResult result) {
+        if (outputDataType == DataType.FLOAT32) {
+            TopKDecoder.decode(scores, numClasses, k, labels, result);
+        } else {
+            TopKDecoder.decodeQuantized(output, numClasses, outputDataType == DataType.INT8,
+                    outputScale, outputZeroPoint, k, labels, result);
+        }
+    }
+
+    // 여러 프레임을 한 번의 run으로 추론하는 배치 모드
+    // 쌓여 있던 프레임을 몰아서 처리하거나, 같은 이미지의 여러 crop을 한 번에 추론할 때 사용
+    // frames[i]의 결과는 results[i]에 저장. 추론 스레드 하나에서만 호출해야 함
+    public void classifyBatch(YuvFrame[] frames, int count, int sensorOrientation,
+                              int k, ClassificationResult[] results) {
+        ensureBatchCapacity(count);
+        for (int i = 0; i < count; i++) {
+            batchYuvConverters[i].convert(frames[i], sensorOrientation / 90,
+                    modelInputWidth, modelInputHeight, inputDataType, batch.getInputSlot(i));
+        }
+        runBatch(count, k, results);
+    }
+
+    // 한 프레임에서 여러 영역(사용자가 누른 위치, sliding window 타일 등)을 잘라서 분류
+    // 가운데만 자르는 classifyTopK()와 달리 화면 가장자리의 물체도 분류할 수 있음
+    // 영역마다 Bitmap을 만들지 않고 프레임 버퍼에서 필요한 픽셀만 배치 입력 버퍼에 바로 쓰고,
+    // 모델이 batch 차원 변경을 지원하면 한 번의 run으로 추론
+    // regions.get(i)의 결과는 results[i]에 저장. 추론 스레드 하나에서만 호출해야 함
+    public void classifyRegions(YuvFrame frame, List<CropRegion> regions, int sensorOrientation,
+                                int k, ClassificationResult[] results) {
+        int count = regions.size();
+        ensureBatchCapacity(count);
+        long startNs = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            batchYuvConverters[i].convert(frame, regions.get(i), sensorOrientation / 90,
+                    modelInputWidth, modelInputHeight, inputDataType, batch.getInputSlot(i));
+        }
+        record(PipelineMetrics.Metric.CONVERT, startNs);
+        runBatch(count, k, results);
+    }
+
+    // Bitmap에서 여러 영역을 잘라서 분류. 픽셀은 한 번만 읽고 영역마다 그 배열에서 샘플링
+    public void classifyRegions(Bitmap image, List<CropRegion> regions, int sensorOrientation,
+                                int k, ClassificationResult[] results) {
+        int count = regions.size();
+        ensureBatchCapacity(count);
+        long startNs = System.nanoTime();
+        readPixels(image);
+        for (int i = 0; i < count; i++) {
+            batchArgbConverters[i].convert(argbPixels, image.getWidth(), image.getHeight(),
+                    regions.get(i), sensorOrientation / 90,
+                    modelInputWidth, modelInputHeight, inputDataType, batch.getInputSlot(i));
+        }
+        record(PipelineMetrics.Metric.PREPROCESS, startNs);
+        runBatch(count, k, results);
+    }
+
+    // newInputBuffer()로 만들고 preprocess()로 채운 입력 데이터를 배치로 추론
+    public void classifyBatch(ByteBuffer[] inputs, int count, int k,
+                              ClassificationResult[] results) {
+        ensureBatchCapacity(count);
+        for (int i = 0; i < count; i++) {
+            ByteBuffer slot = batch.getInputSlot(i);
+            slot.clear();
+            inputs[i].rewind();
+            slot.put(inputs[i]);
+            inputs[i].rewind();
+        }
+        runBatch(count, k, results);
+    }
+
+    private void runBatch(int count, int k, ClassificationResult[] results) {
+        if (results.length < count) {
+            throw new IllegalArgumentException("Need " + count + " results: " + results.length);
+        }
+        batch.run(count);
+        for (int i = 0; i < count; i++) {
+            decode(batch.getOutputSlot(i), batch.getScoreSlot(i), k, results[i]);
+        }
+    }
+
+    // 입력 tensor의 batch 차원을 count 이상으로 늘리고, 입출력 버퍼를 프레임 단위로 나눠 둠 (BatchBuffers)
+    private void ensureBatchCapacity(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + count);
+        }
+        if (batchInterpreter == null) {
+            batchInterpreter = createBatchInterpreter();
+            batch = new BatchBuffers(batchModel, inputBuffer.capacity(),
+                    outputBuffer.capacity());
+        }
+        batch.ensureCapacity(count);
+        // converter는 늘리기만 하고 있던 것은 그대로 사용
+        if (batchYuvConverters.length < count) {
+            int previous = batchYuvConverters.length;
+            batchYuvConverters = Arrays.copyOf(batchYuvConverters, count);
+            batchArgbConverters = Arrays.copyOf(batchArgbConverters, count);
+            for (int i = previous; i < count; i++) {
+                batchYuvConverters[i] = new YuvToTensorConverter();
+                batchArgbConverters[i] = new ArgbToTensorConverter();
+                if (inputDataType != DataType.FLOAT32) {
+                    batchYuvConverters[i].setInputQuantization(inputScale, inputZeroPoint);
+                    batchArgbConverters[i].setInputQuantization(inputScale, inputZeroPoint);
+                }
             }
         }
-        return new Pair<>(maxKey, maxVal);
+    }
+
+    // batchInterpreter로 BatchBuffers를 실행
+    private final BatchBuffers.Model batchModel = new BatchBuffers.Model() {
+        @Override
+        public boolean resize(int count) {
+            int[] shape = interpreter.getInputTensor(0).shape();
+            shape[0] = count;
+            try {
+                batchInterpreter.resizeInput(0, shape);
+                batchInterpreter.allocateTensors();
+                return true;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                Log.w(TAG, "Model does not support batch size " + count
+                        + ", running frames one by one", e);
+                shape[0] = 1;
+                batchInterpreter.resizeInput(0, shape);
+                batchInterpreter.allocateTensors();
+                return false;
+            }
+        }
+
+        @Override
+        public void run(ByteBuffer input, ByteBuffer output) {
+            batchInterpreter.run(input, output);
+        }
+    };
+
+    // 배치용 Interpreter는 NNAPI delegate를 공유할 수 없으므로 CPU(XNNPACK)로만 실행
+    private Interpreter createBatchInterpreter() {
+        try {
+            batchRepacksWeights = options.useXnnpack;
+            return new Interpreter(modelBuffer, options.toInterpreterOptions(numThreads));
+        } catch (RuntimeException | UnsatisfiedLinkError e) {
+            Log.w(TAG, "Failed to create batch interpreter with XNNPACK, using CPU", e);
+            batchRepacksWeights = false;
+            return new Interpreter(modelBuffer,
+                    options.toInterpreterOptions(numThreads).setUseXNNPACK(false));
+        }
+    }
+
+    // 기기 방향이 없을 때 추론
+    public Pair<String, Float> classify(Bitmap image) {
+        return classify(image, 0);
     }
 
     // 메모리 정리
     public void finish() {
-        if(model != null) {
-            model.close();
+        if(interpreter != null) {
+            interpreter.close();
+            interpreter = null;
             isInitialized = false;
         }
+        closeBatchInterpreter();
+        closeDelegate();
+    }
+
+    private void closeBatchInterpreter() {
+        if (batchInterpreter != null) {
+            batchInterpreter.close();
+            batchInterpreter = null;
+            batch = null;
+        }
+    }
+
+    // Interpreter 생성 옵션
+    public static class Options {
+        int numThreads = 4;
+        boolean useXnnpack = true;
+        boolean useNnapi = false;
+        boolean allowFp16 = false;
+        boolean useBufferHandle = false;
+
+        // CPU 추론에 사용할 스레드 수
+        public Options setNumThreads(int numThreads) {
+            if (numThreads < 1) {
+                throw new IllegalArgumentException("Thread count must be positive.");
+            }
+            this.numThreads = numThreads;
+            return this;
+        }
+
+        public Options setUseXnnpack(boolean useXnnpack) {
+            this.useXnnpack = useXnnpack;
+            return this;
+        }
+
+        public Options setUseNnapi(boolean useNnapi) {
+            this.useNnapi = useNnapi;
+            return this;
+        }
+
+        // float 모델을 fp16 정밀도로 계산하도록 허용
+        public Options setAllowFp16(boolean allowFp16) {
+            this.allowFp16 = allowFp16;
+            return this;
+        }
+
+        public Options setUseBufferHandle(boolean useBufferHandle) {
+            this.useBufferHandle = useBufferHandle;
+            return this;
+        }
+
+        // NNAPI delegate를 제외한 Interpreter 옵션. 데스크톱 벤치마크에서도 같은 설정을 사용
+        Interpreter.Options toInterpreterOptions() {
+            return toInterpreterOptions(numThreads);
+        }
+
+        // Classifier.setNumThreads()로 스레드 수를 바꾼 Interpreter용
+        // setAllowFp16PrecisionForFp32()는 deprecated지만 TFLite 2.4에는 대신할 API가 없어서 그대로 사용
+        @SuppressWarnings("deprecation")
+        Interpreter.Options toInterpreterOptions(int numThreads) {
+            return new Interpreter.Options()
+                    .setNumThreads(numThreads)
+                    .setUseXNNPACK(useXnnpack)
+                    .setAllowFp16PrecisionForFp32(allowFp16)
+                    .setAllowBufferHandleOutput(useBufferHandle);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.example.realtimecamera;
+
+import android.util.Log;
+
+// 같은 모델을 사용하는 Classifier 여러 개
+// 각 Classifier는 따로 Interpreter와 입출력 버퍼를 가지므로 서로 다른 스레드에서 동시에 추론할 수 있음
+// i번 Classifier는 FramePipeline의 i번 추론 스레드에서만 사용하므로 lock 없이 사용
+// 모델 정보와 전처리는 첫 번째 Classifier(getPrimary())를 사용
+public class ClassifierPool {
+    public static final String TAG = "[IC]ClassifierPool";
+
+    private final Classifier[] classifiers;
+
+    // 초기화가 끝난 primary로부터 size - 1개의 Classifier를 더 만듦
+    public ClassifierPool(Classifier primary, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + size);
+        }
+        classifiers = new Classifier[size];
+        classifiers[0] = primary;
+        try {
+            for (int i = 1; i < size; i++) {
+                classifiers[i] = primary.newReplica();
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        Log.d(TAG, primary.getSpec().getName() + " - " + size + " interpreters");
+    }
+
+    public Classifier getPrimary() {
+        return classifiers[0];
+    }
+
+    // worker번 추론 스레드가 사용할 Classifier
+    public Classifier get(int worker) {
+        return classifiers[worker];
+    }
+
+    public int getSize() {
+        return classifiers.length;
+    }
+
+    public ModelSpec getSpec() {
+        return classifiers[0].getSpec();
+    }
+
+    public boolean isInitialized() {
+        return classifiers[0].isInitialized();
+    }
+
+    public void setMetrics(PipelineMetrics metrics) {
+        for (Classifier classifier : classifiers) {
+            classifier.setMetrics(metrics);
+        }
+    }
+
+    // 모델 파일과 레이블은 공유하므로 두 번째부터는 입출력 버퍼와 Interpreter 추정값만 더함
+    // (Interpreter마다 중간 tensor arena와 XNNPACK 가중치를 따로 가짐)
+    public long getFootprintBytes() {
+        long bytes = classifiers[0].getFootprintBytes();
+        for (int i = 1; i < classifiers.length; i++) {
+            bytes += classifiers[i].getBufferBytes() + classifiers[i].getInterpreterBytes();
+        }
+        return bytes;
+    }
+
+    public void close() {
+        for (Classifier classifier : classifiers) {
+            if (classifier != null) {
+                classifier.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.realtimecamera;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 프레임에서 분류할 영역. 좌표는 프레임의 crop 영역(화면에 보이는 부분) 기준 픽셀 단위
+// 영역은 모델 입력 크기로 그대로 늘이거나 줄여서 사용하므로 모델과 같은 비율이면 왜곡이 없음
+// android.graphics.Rect 대신 사용해서 JVM 테스트에서도 만들 수 있음
+public class CropRegion {
+
+    final int left, top, width, height;
+
+    public CropRegion(int left, int top, int width, int height) {
+        if (left < 0 || top < 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid region: " + left + ", " + top
+                    + ", " + width + "x" + height);
+        }
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    // (centerX, centerY)를 중심으로 한 size x size 영역. 프레임 밖으로 나가지 않도록 안쪽으로 옮김
+    // 사용자가 화면을 누른 위치를 분류할 때 사용
+    public static CropRegion centeredAt(int centerX, int centerY, int size,
+                                        int frameWidth, int frameHeight) {
+        size = Math.min(size, Math.min(frameWidth, frameHeight));
+        int left = Math.max(0, Math.min(centerX - size / 2, frameWidth - size));
+        int top = Math.max(0, Math.min(centerY - size / 2, frameHeight - size));
+        return new CropRegion(left, top, size, size);
+    }
+
+    // 프레임 전체를 size x size 타일로 나눔 (sliding window). 타일 사이 간격은 stride
+    // 마지막 타일이 프레임 끝에 딱 맞지 않으면 끝에 맞춘 타일을 하나 더 추가
+    public static List<CropRegion> tiles(int frameWidth, int frameHeight, int size, int stride) {
+        if (size <= 0 || stride <= 0 || size > frameWidth || size > frameHeight) {
+            throw new IllegalArgumentException("Invalid tile size " + size + " or stride " + stride
+                    + " for " + frameWidth + "x" + frameHeight);
+        }
+        int[] lefts = tileOffsets(frameWidth, size, stride);
+        int[] tops = tileOffsets(frameHeight, size, stride);
+        List<CropRegion> regions = new ArrayList<>(lefts.length * tops.length);
+        for (int top : tops) {
+            for (int left : lefts) {
+                regions.add(new CropRegion(left, top, size, size));
+            }
+        }
+        return regions;
+    }
+
+    private static int[] tileOffsets(int length, int size, int stride) {
+        int count = (length - size) / stride + 1;
+        boolean partial = (length - size) % stride != 0;
+        int[] offsets = new int[partial ? count + 1 : count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = i * stride;
+        }
+        if (partial) {
+            offsets[count] = length - size;
+        }
+        return offsets;
+    }
+
+    // 이 영역이 width x height 프레임 안에 들어가는지 확인
+    void checkInside(int frameWidth, int frameHeight) {
+        if (left + width > frameWidth || top + height > frameHeight) {
+            throw new IllegalArgumentException("Region " + this + " is outside of "
+                    + frameWidth + "x" + frameHeight);
+        }
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CropRegion)) {
+            return false;
+        }
+        CropRegion region = (CropRegion) other;
+        return left == region.left && top == region.top
+                && width == region.width && height == region.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((left * 31 + top) * 31 + width) * 31 + height;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + ", " + top + ", " + width + "x" + height + ")";
+    }
+}
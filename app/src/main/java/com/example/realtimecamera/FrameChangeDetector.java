@@ -0,0 +1,121 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 장면이 거의 바뀌지 않은 프레임을 찾아서 추론을 건너뛰게 하는 클래스
+// Y plane을 16x16 썸네일(칸마다 4x4 샘플 평균)로 줄이고, 마지막으로 추론한 프레임의 썸네일과
+// 픽셀당 평균 차이(SAD / 픽셀 수)를 비교함. 256칸 x 16샘플이라 변환 비용에 비하면 무시할 수준
+// 비슷한 프레임이 계속 들어와도 maxStaleNs가 지나면 한 번은 다시 추론함
+// 기준 프레임이 바뀔 때마다 scene id가 바뀌므로, 기준 프레임이 추론 전에 버려졌는지 확인할 수 있음
+// isUnchanged(), getSceneId()는 변환 스레드 하나에서만 호출. 카운터는 어느 스레드에서 읽어도 됨
+public class FrameChangeDetector {
+
+    static final int THUMBNAIL_SIZE = 16;
+    private static final int SAMPLES_PER_CELL = 4;     // 칸 하나에서 가로, 세로로 읽는 샘플 수
+
+    private final float threshold;
+    private final long maxStaleNs;
+
+    private final int[] reference = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private final int[] current = new int[THUMBNAIL_SIZE * THUMBNAIL_SIZE];
+    private boolean hasReference = false;
+    private long referenceTimeNs;
+    private long sceneId = 0;
+
+    private final AtomicLong reusedCount = new AtomicLong();
+    private final AtomicLong inferenceCount = new AtomicLong();
+    private final AtomicLong inferenceNs = new AtomicLong();
+
+    // threshold : 픽셀당 평균 밝기 차이(0~255)가 이 값 이하이면 같은 장면으로 봄
+    // maxStaleNs : 결과를 재사용할 수 있는 최대 시간
+    public FrameChangeDetector(float threshold, long maxStaleNs) {
+        if (threshold < 0 || maxStaleNs < 0) {
+            throw new IllegalArgumentException("Threshold and staleness must not be negative.");
+        }
+        this.threshold = threshold;
+        this.maxStaleNs = maxStaleNs;
+    }
+
+    // true면 이전 결과를 재사용하고, false면 이 프레임을 새 기준으로 삼고 추론해야 함
+    public boolean isUnchanged(YuvFrame frame, long nowNs) {
+        thumbnail(frame, current);
+        if (hasReference && nowNs - referenceTimeNs <= maxStaleNs
+                && difference(reference, current) <= threshold) {
+            return true;
+        }
+        System.arraycopy(current, 0, reference, 0, current.length);
+        referenceTimeNs = nowNs;
+        hasReference = true;
+        sceneId++;
+        return false;
+    }
+
+    // 마지막으로 isUnchanged()가 false를 리턴한 프레임(기준 프레임)의 번호
+    public long getSceneId() {
+        return sceneId;
+    }
+
+    // 추론 스레드에서 실제 결과를 기록. 추론한 시간은 건너뛴 시간을 추정하는 데 사용
+    public void recordInference(long nanos) {
+        inferenceCount.incrementAndGet();
+        inferenceNs.addAndGet(nanos);
+    }
+
+    public void recordReuse() {
+        reusedCount.incrementAndGet();
+    }
+
+    public long getInferenceCount() {
+        return inferenceCount.get();
+    }
+
+    public long getReusedCount() {
+        return reusedCount.get();
+    }
+
+    // 결과를 재사용한 비율
+    public float getHitRate() {
+        long reused = reusedCount.get();
+        long total = reused + inferenceCount.get();
+        return total == 0 ? 0f : (float) reused / total;
+    }
+
+    // 재사용한 프레임 수 x 평균 추론 시간
+    public long getSavedInferenceNs() {
+        long count = inferenceCount.get();
+        return count == 0 ? 0 : reusedCount.get() * (inferenceNs.get() / count);
+    }
+
+    // crop 영역의 Y plane을 THUMBNAIL_SIZE x THUMBNAIL_SIZE 평균 밝기로 줄임
+    static void thumbnail(YuvFrame frame, int[] out) {
+        final ByteBuffer yBuffer = frame.yBuffer;
+        final int samples = THUMBNAIL_SIZE * SAMPLES_PER_CELL;
+        for (int cy = 0; cy < THUMBNAIL_SIZE; cy++) {
+            for (int cx = 0; cx < THUMBNAIL_SIZE; cx++) {
+                int sum = 0;
+                for (int sy = 0; sy < SAMPLES_PER_CELL; sy++) {
+                    // 샘플 격자의 중앙 좌표
+                    int row = frame.cropTop
+                            + (2 * (cy * SAMPLES_PER_CELL + sy) + 1) * frame.cropHeight / (2 * samples);
+                    int rowOffset = row * frame.yRowStride;
+                    for (int sx = 0; sx < SAMPLES_PER_CELL; sx++) {
+                        int col = frame.cropLeft
+                                + (2 * (cx * SAMPLES_PER_CELL + sx) + 1) * frame.cropWidth / (2 * samples);
+                        sum += yBuffer.get(rowOffset + col * frame.yPixelStride) & 0xff;
+                    }
+                }
+                out[cy * THUMBNAIL_SIZE + cx] = sum / (SAMPLES_PER_CELL * SAMPLES_PER_CELL);
+            }
+        }
+    }
+
+    // 픽셀당 평균 절대 차이
+    static float difference(int[] a, int[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return (float) sum / a.length;
+    }
+}
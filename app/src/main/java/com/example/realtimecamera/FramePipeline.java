@@ -0,0 +1,244 @@
+package com.example.realtimecamera;
+
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// 카메라 프레임 처리 파이프라인
+// acquire(카메라 스레드) -> convert(변환 스레드) -> infer(추론 스레드) -> publish(UI 스레드)
+// 단계 사이는 LatestSlot(변환 -> 추론은 InferenceDispatcher)으로 연결되어 있어서, 다음 단계가 바쁘면 오래된 프레임은 버리고 최신 프레임만 남김.
+// 원본(Image)은 변환이 끝나면 바로 반납하므로 카메라는 다음 이미지를 계속 보낼 수 있고,
+// 변환과 추론이 서로 다른 스레드에서 겹쳐서 실행됨.
+// 프레임 버퍼는 FramePool에서 빌려 쓰고 돌려주므로 새로 할당하지 않음
+// 추론 스레드를 여러 개 두면 연속된 프레임을 동시에 추론하고, 결과는 InferenceDispatcher가 변환된 순서대로 내보냄
+// S: 원본 타입 (Image), F: 변환 결과와 추론 결과를 담는 프레임 타입
+public class FramePipeline<S, F> {
+    public static final String TAG = "[IC]FramePipeline";
+
+    // 각 단계에서 실제로 할 일
+    public interface StageCallback<S, F> {
+        void convert(S source, F frame);    // 변환 스레드
+        void release(S source);             // 원본 반납. 변환 후, 또는 버려질 때 호출
+        void infer(int worker, F frame);    // 추론 스레드. worker는 추론 스레드 번호 (0부터)
+        void deliver(F frame);              // 추론이 끝난 프레임을 변환된 순서대로 하나씩 전달. 호출이 겹치지 않음
+        void publish();                     // 새 결과가 생겼을 때 추론 스레드에서 호출
+    }
+
+    public enum Stage {
+        ACQUIRE,    // 변환 스레드가 가져가기 전에 새 원본이 들어와서 버려짐
+        CONVERT,    // 빈 프레임이 없거나 변환 중 예외가 나서 버려짐
+        INFER,      // 추론 스레드가 가져가기 전에 새 프레임이 들어와서 버려짐
+        PUBLISH     // 화면에 출력하기 전에 새 결과가 들어와서 버려짐
+    }
+
+    private final StageCallback<S, F> callback;
+    private final LatestSlot<S> sourceSlot = new LatestSlot<>();
+    private final InferenceDispatcher<F> dispatcher;
+    private final LatestSlot<F> resultSlot = new LatestSlot<>();
+    private final FramePool<F> framePool;
+
+    private final AtomicLongArray processed = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray dropped = new AtomicLongArray(Stage.values().length);
+    private final AtomicLong failed = new AtomicLong();    // 추론 중 예외가 난 프레임 수
+
+    // 순서대로 나온 결과를 출력 슬롯에 넣음. dispatcher의 lock 안에서 호출됨
+    private final InferenceDispatcher.Sink<F> resultSink = this::offerResult;
+
+    private Thread convertThread;
+    private Thread[] inferenceThreads;
+    // stop() 이후에 들어온 원본은 가져갈 스레드가 없으므로 submit()에서 바로 반납
+    private volatile boolean stopped = false;
+
+    public FramePipeline(StageCallback<S, F> callback, FramePool<F> framePool) {
+        this(callback, framePool, 1);
+    }
+
+    // inferenceThreads개의 추론 스레드를 사용. 추론 스레드마다 따로 Interpreter가 있어야 함
+    public FramePipeline(StageCallback<S, F> callback, FramePool<F> framePool,
+                         int inferenceThreads) {
+        this.callback = callback;
+        this.framePool = framePool;
+        this.dispatcher = new InferenceDispatcher<>(inferenceThreads);
+    }
+
+    public synchronized void start() {
+        if (convertThread != null) {
+            return;
+        }
+        stopped = false;
+        convertThread = new Thread(this::convertLoop, "ConvertThread");
+        inferenceThreads = new Thread[dispatcher.getWorkerCount()];
+        for (int i = 0; i < inferenceThreads.length; i++) {
+            final int worker = i;
+            inferenceThreads[i] = new Thread(() -> inferenceLoop(worker),
+                    inferenceThreads.length == 1 ? "InferenceThread" : "InferenceThread-" + i);
+        }
+        convertThread.start();
+        for (Thread thread : inferenceThreads) {
+            thread.start();
+        }
+    }
+
+    // 스레드를 멈추고 남아있는 원본은 반납
+    public synchronized void stop() {
+        if (convertThread == null) {
+            return;
+        }
+        stopped = true;
+        convertThread.interrupt();
+        for (Thread thread : inferenceThreads) {
+            thread.interrupt();
+        }
+        try {
+            convertThread.join();
+            for (Thread thread : inferenceThreads) {
+                thread.join();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        convertThread = null;
+        inferenceThreads = null;
+
+        S source = sourceSlot.poll();
+        if (source != null) {
+            callback.release(source);
+        }
+        F frame;
+        while ((frame = dispatcher.poll()) != null) {
+            recycle(frame);
+        }
+        recycleIfNotNull(resultSlot.poll());
+    }
+
+    // 카메라 스레드에서 호출. 밀려난 이전 원본은 바로 반납
+    public void submit(S source) {
+        processed.incrementAndGet(Stage.ACQUIRE.ordinal());
+        S previous = sourceSlot.offer(source);
+        if (previous != null) {
+            dropped.incrementAndGet(Stage.ACQUIRE.ordinal());
+            callback.release(previous);
+        }
+        // stop()과 겹쳐서 아무도 가져가지 않을 원본. stop()이 이미 가져갔으면 null
+        if (stopped) {
+            S late = sourceSlot.poll();
+            if (late != null) {
+                callback.release(late);
+            }
+        }
+    }
+
+    // 가장 최근 결과를 가져옴. 다 사용한 프레임은 recycle()로 반납해야 함
+    public F pollResult() {
+        F frame = resultSlot.poll();
+        if (frame != null) {
+            processed.incrementAndGet(Stage.PUBLISH.ordinal());
+        }
+        return frame;
+    }
+
+    public void recycle(F frame) {
+        framePool.release(frame);
+    }
+
+    public FramePool<F> getFramePool() {
+        return framePool;
+    }
+
+    public long getProcessedCount(Stage stage) {
+        return processed.get(stage.ordinal());
+    }
+
+    public long getDroppedCount(Stage stage) {
+        return dropped.get(stage.ordinal());
+    }
+
+    // callback.infer()에서 예외가 나서 버린 프레임 수
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getTotalDroppedCount() {
+        long total = 0;
+        for (int i = 0; i < dropped.length(); i++) {
+            total += dropped.get(i);
+        }
+        return total;
+    }
+
+    private void convertLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                S source = sourceSlot.take();
+                F frame = framePool.acquire();
+                if (frame == null) {
+                    dropped.incrementAndGet(Stage.CONVERT.ordinal());
+                    callback.release(source);
+                    continue;
+                }
+                try {
+                    callback.convert(source, frame);
+                } catch (final RuntimeException e) {
+                    // 프레임은 pool에 돌려주고 변환 스레드는 계속 다음 원본을 처리
+                    Log.e(TAG, "Conversion failed", e);
+                    recycle(frame);
+                    dropped.incrementAndGet(Stage.CONVERT.ordinal());
+                    continue;
+                } finally {
+                    callback.release(source);
+                }
+                processed.incrementAndGet(Stage.CONVERT.ordinal());
+                F previous = dispatcher.offer(frame);
+                if (previous != null) {
+                    dropped.incrementAndGet(Stage.INFER.ordinal());
+                    recycle(previous);
+                }
+            }
+        } catch (final InterruptedException e) {
+            // stop()에서 중지
+        }
+    }
+
+    private void inferenceLoop(int worker) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                F frame = dispatcher.take(worker);
+                try {
+                    callback.infer(worker, frame);
+                } catch (final RuntimeException e) {
+                    // 예외가 난 프레임은 버리고 자리를 비워서 뒤의 프레임이 계속 순서대로 나가게 함
+                    // 추론 스레드는 계속 다음 프레임을 처리 (추론 스레드가 하나뿐인 기기가 많음)
+                    Log.e(TAG, "Inference failed on worker " + worker, e);
+                    failed.incrementAndGet();
+                    boolean delivered = dispatcher.abandon(worker, resultSink);
+                    recycle(frame);
+                    if (delivered) {
+                        callback.publish();
+                    }
+                    continue;
+                }
+                processed.incrementAndGet(Stage.INFER.ordinal());
+                dispatcher.complete(worker, frame, resultSink);
+                callback.publish();
+            }
+        } catch (final InterruptedException e) {
+            // stop()에서 중지
+        }
+    }
+
+    private void offerResult(F frame) {
+        callback.deliver(frame);
+        F previous = resultSlot.offer(frame);
+        if (previous != null) {
+            dropped.incrementAndGet(Stage.PUBLISH.ordinal());
+            recycle(previous);
+        }
+    }
+
+    private void recycleIfNotNull(F frame) {
+        if (frame != null) {
+            recycle(frame);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.realtimecamera;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 미리 만들어 둔 프레임 버퍼를 돌려쓰는 고정 크기 pool (lock-free)
+// 생산자(변환 스레드)는 acquire()로 빈 버퍼를 받아 채우고, 소비자는 다 쓴 버퍼를 release()로 돌려줌.
+// 버퍼는 한 번에 한 스레드만 가지고 있으므로 변환 중인 버퍼를 추론이 읽는 일(tearing)이 없음.
+// 빈 버퍼가 없으면 새로 만들지 않고 null을 리턴 (miss)
+// 버퍼마다 자기 자리가 정해져 있어서 pool이 만들지 않은 버퍼나 두 번 반납한 버퍼는 받지 않음
+public class FramePool<F> {
+
+    private final Object[] frames;                 // i번 버퍼. 자리(slots)의 주인
+    private final AtomicReferenceArray<F> slots;   // pool에 있으면 i번 버퍼, 빌려주면 null
+    private final AtomicLong reuseCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public FramePool(List<F> frames) {
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("Pool needs at least one frame.");
+        }
+        this.frames = frames.toArray();
+        slots = new AtomicReferenceArray<>(frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            if (indexOf(frames.get(i)) != i) {
+                throw new IllegalArgumentException("Frame is listed twice: " + i);
+            }
+            slots.set(i, frames.get(i));
+        }
+    }
+
+    // 빈 버퍼를 가져옴. 모두 사용 중이면 null
+    public F acquire() {
+        for (int i = 0; i < slots.length(); i++) {
+            F frame = slots.get(i);
+            if (frame != null && slots.compareAndSet(i, frame, null)) {
+                reuseCount.incrementAndGet();
+                return frame;
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    // 다 사용한 버퍼를 자기 자리에 돌려줌
+    public void release(F frame) {
+        int index = indexOf(frame);
+        if (index < 0) {
+            throw new IllegalArgumentException("Frame does not belong to this pool.");
+        }
+        if (!slots.compareAndSet(index, null, frame)) {
+            throw new IllegalStateException("Frame was released twice.");
+        }
+    }
+
+    // pool 크기가 작으므로(프레임 수) 순서대로 찾음. 같은 객체인지로 비교
+    private int indexOf(Object frame) {
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] == frame) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getSize() {
+        return slots.length();
+    }
+
+    // 지금 pool에 남아 있는 버퍼 수
+    public int getAvailable() {
+        int available = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    public long getReuseCount() {
+        return reuseCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.realtimecamera;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// 카메라 프레임을 파일에 그대로 기록. RecordedFrameSource로 다시 재생할 수 있음
+// 카메라 스레드에서는 미리 만들어 둔 direct 버퍼에 plane을 복사만 하고 Image는 바로 반납,
+// 파일 쓰기는 기록 스레드가 FileChannel로 함. 그래서 디스크가 느려도 카메라는 멈추지 않음
+// 빈 버퍼가 없으면 그 프레임은 기록하지 않고 건너뜀 (getDroppedCount())
+//
+// 파일 형식 (little endian, 뒤에 이어 붙이기만 함)
+//   파일 헤더 : magic(int) version(int)
+//   프레임마다 : RECORD_HEADER_BYTES 크기의 헤더 + Y plane + U plane + V plane
+//     timestamp(long) rotation width height cropLeft cropTop cropWidth cropHeight
+//     yRowStride yPixelStride uvRowStride uvPixelStride yLength uLength vLength (모두 int)
+// plane은 stride 여백까지 버퍼 전체를 기록하므로 재생할 때 카메라와 같은 stride로 읽힘
+public class FrameRecorder implements Closeable {
+
+    static final int MAGIC = 0x52565559;     // "YUVR"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 8 + 4 * 14;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    // 기록 스레드에게 끝났음을 알리는 빈 버퍼
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+    private final Thread writerThread;
+    private volatile IOException error;
+    private volatile boolean closed = false;
+
+    private long recordedCount = 0;
+    private long droppedCount = 0;
+
+    // 파일이 이미 있으면 뒤에 이어서 기록
+    // buffers는 쓰기를 기다릴 수 있는 프레임 수. 버퍼는 첫 프레임 크기에 맞춰 만듦
+    public FrameRecorder(File file, int buffers) throws IOException {
+        if (buffers < 1) {
+            throw new IllegalArgumentException("Buffer count must be positive: " + buffers);
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ORDER);
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(header);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        freeBuffers = new ArrayBlockingQueue<>(buffers);
+        filledBuffers = new ArrayBlockingQueue<>(buffers + 1);
+        for (int i = 0; i < buffers; i++) {
+            freeBuffers.add(END);      // 아직 만들지 않은 버퍼. 처음 사용할 때 만듦
+        }
+        writerThread = new Thread(this::writeLoop, "FrameRecorderThread");
+        writerThread.start();
+    }
+
+    // frame을 기록 대기열에 넣음. 빈 버퍼가 없거나 쓰기에 실패한 뒤이면 false
+    // 한 스레드(카메라 스레드)에서만 호출
+    public boolean record(YuvFrame frame, int rotation) {
+        ByteBuffer buffer = closed || error != null ? null : freeBuffers.poll();
+        if (buffer == null) {
+            droppedCount++;
+            return false;
+        }
+        int yLength = frame.yBuffer.limit();
+        int uLength = frame.uBuffer.limit();
+        int vLength = frame.vBuffer.limit();
+        int size = RECORD_HEADER_BYTES + yLength + uLength + vLength;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(size).order(ORDER);
+        }
+        buffer.clear();
+        buffer.putLong(frame.timestampNs).putInt(rotation)
+                .putInt(frame.width).putInt(frame.height)
+                .putInt(frame.cropLeft).putInt(frame.cropTop)
+                .putInt(frame.cropWidth).putInt(frame.cropHeight)
+                .putInt(frame.yRowStride).putInt(frame.yPixelStride)
+                .putInt(frame.uvRowStride).putInt(frame.uvPixelStride)
+                .putInt(yLength).putInt(uLength).putInt(vLength);
+        copyPlane(frame.yBuffer, buffer);
+        copyPlane(frame.uBuffer, buffer);
+        copyPlane(frame.vBuffer, buffer);
+        buffer.flip();
+        filledBuffers.add(buffer);
+        recordedCount++;
+        return true;
+    }
+
+    // plane 버퍼의 0번부터 limit까지 복사. plane의 position은 0으로 되돌림
+    private static void copyPlane(ByteBuffer plane, ByteBuffer buffer) {
+        plane.position(0);
+        buffer.put(plane);
+        plane.position(0);
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                ByteBuffer buffer = filledBuffers.take();
+                if (buffer == END) {
+                    return;
+                }
+                if (error == null) {
+                    try {
+                        writeFully(buffer);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                freeBuffers.add(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // 기록을 마침. 대기열에 남은 프레임을 모두 쓰고 파일을 닫음
+    // 기록 중에 쓰기가 실패했으면 그 예외를 던짐
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        filledBuffers.add(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public long getRecordedCount() {
+        return recordedCount;
+    }
+
+    // 빈 버퍼가 없어서 기록하지 못한 프레임 수
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.realtimecamera;
+
+// 파이프라인에 넣을 프레임을 만들어 주는 곳
+// 실제 카메라(CameraFrameSource)와 녹화 파일 재생(RecordedFrameSource)이 있으므로
+// 카메라 없이도 같은 프레임으로 파이프라인을 반복해서 실행할 수 있음
+public interface FrameSource {
+
+    // 프레임을 받을 곳. 받은 프레임은 직접 close() 하거나 파이프라인에 넘겨서 반납되게 해야 함
+    interface Listener {
+        void onFrame(SourceFrame frame);
+    }
+
+    void start(Listener listener);
+
+    // 멈춘 뒤에는 onFrame()이 호출되지 않음
+    void stop();
+}
@@ -0,0 +1,131 @@
+package com.example.realtimecamera;
+
+import java.util.Arrays;
+
+// 변환된 프레임을 여러 추론 스레드에 나눠 주고, 추론이 끝난 순서와 상관없이 변환된 순서대로 내보냄
+// 대기 중인 프레임은 하나만 보관하고 새 프레임이 들어오면 밀어냄 (latest wins)
+// 쉬고 있는 추론 스레드가 대기 중인 프레임을 가져가므로 느린 스레드에 일이 몰리지 않음
+// 프레임마다 순번을 매기고, 먼저 들어온 프레임이 아직 추론 중이면 뒤의 결과는 기다렸다가 순서대로 내보냄
+// 추론 스레드 수가 적으므로(2~4) 한 개의 lock으로 처리
+class InferenceDispatcher<F> {
+
+    // 결과를 순서대로 받는 곳. lock을 잡은 상태에서 호출되므로 호출이 겹치지 않음
+    interface Sink<F> {
+        void deliver(F frame);
+    }
+
+    private static final long IDLE = Long.MAX_VALUE;
+
+    private final long[] running;        // 추론 스레드별로 추론 중인 프레임 순번. 없으면 IDLE
+    // 추론이 끝났지만 앞 프레임을 기다리는 중인 프레임. 순번 순서로 정렬
+    // 한 스레드가 오래 걸리면 다른 스레드의 결과가 계속 쌓이므로 모자라면 늘림 (프레임 pool 크기가 한도)
+    private long[] waitingSeq;
+    private Object[] waitingFrames;
+    private int waitingCount = 0;
+
+    private F pending;                   // 추론 스레드가 가져가기를 기다리는 프레임
+    private long pendingSeq;
+    private long nextSeq = 0;
+
+    InferenceDispatcher(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Need at least one worker.");
+        }
+        running = new long[workers];
+        Arrays.fill(running, IDLE);
+        waitingSeq = new long[workers];
+        waitingFrames = new Object[workers];
+    }
+
+    int getWorkerCount() {
+        return running.length;
+    }
+
+    // 변환 스레드에서 호출. 아직 가져가지 않은 이전 프레임이 있으면 리턴
+    synchronized F offer(F frame) {
+        F previous = pending;
+        pending = frame;
+        pendingSeq = nextSeq++;
+        notify();
+        return previous;
+    }
+
+    // worker번 추론 스레드에서 호출. 프레임이 들어올 때까지 대기
+    synchronized F take(int worker) throws InterruptedException {
+        while (pending == null) {
+            wait();
+        }
+        F frame = pending;
+        pending = null;
+        running[worker] = pendingSeq;
+        return frame;
+    }
+
+    // worker번 추론 스레드가 추론을 끝내면 호출
+    // 앞선 프레임이 모두 끝났으면 기다리던 프레임과 함께 순서대로 sink에 넘김
+    synchronized void complete(int worker, F frame, Sink<F> sink) {
+        long seq = running[worker];
+        running[worker] = IDLE;
+        if (waitingCount == waitingSeq.length) {
+            waitingSeq = Arrays.copyOf(waitingSeq, waitingCount * 2);
+            waitingFrames = Arrays.copyOf(waitingFrames, waitingCount * 2);
+        }
+        int i = waitingCount;
+        while (i > 0 && waitingSeq[i - 1] > seq) {
+            waitingSeq[i] = waitingSeq[i - 1];
+            waitingFrames[i] = waitingFrames[i - 1];
+            i--;
+        }
+        waitingSeq[i] = seq;
+        waitingFrames[i] = frame;
+        waitingCount++;
+        deliverReady(sink);
+    }
+
+    // worker번 추론 스레드가 추론에 실패하면 호출. 그 프레임은 내보내지 않고 자리만 비움
+    // 이 프레임을 기다리던 뒤의 프레임은 순서대로 sink에 넘김. 넘긴 프레임이 있으면 true
+    synchronized boolean abandon(int worker, Sink<F> sink) {
+        running[worker] = IDLE;
+        return deliverReady(sink) > 0;
+    }
+
+    // 추론 중인 프레임보다 앞선 프레임을 모두 넘기고 넘긴 개수를 리턴
+    private int deliverReady(Sink<F> sink) {
+        long oldestRunning = IDLE;
+        for (long runningSeq : running) {
+            oldestRunning = Math.min(oldestRunning, runningSeq);
+        }
+        int delivered = 0;
+        while (delivered < waitingCount && waitingSeq[delivered] < oldestRunning) {
+            @SuppressWarnings("unchecked")
+            F ready = (F) waitingFrames[delivered];
+            sink.deliver(ready);
+            delivered++;
+        }
+        if (delivered > 0) {
+            System.arraycopy(waitingSeq, delivered, waitingSeq, 0, waitingCount - delivered);
+            System.arraycopy(waitingFrames, delivered, waitingFrames, 0, waitingCount - delivered);
+            Arrays.fill(waitingFrames, waitingCount - delivered, waitingCount, null);
+            waitingCount -= delivered;
+        }
+        return delivered;
+    }
+
+    // 추론 스레드를 모두 멈춘 뒤에 남아 있는 프레임을 하나씩 꺼냄. 없으면 null
+    synchronized F poll() {
+        if (pending != null) {
+            F frame = pending;
+            pending = null;
+            return frame;
+        }
+        if (waitingCount > 0) {
+            waitingCount--;
+            @SuppressWarnings("unchecked")
+            F frame = (F) waitingFrames[waitingCount];
+            waitingFrames[waitingCount] = null;
+            return frame;
+        }
+        Arrays.fill(running, IDLE);
+        return null;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.realtimecamera;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 카메라 프레임 중 어떤 것을 추론할지 정하는 클래스
+// 목표 결과 주기(targetIntervalNs)에 맞춰 프레임을 받고, 최근 추론 시간이나 발열 상태가 나빠지면
+// 단계(level)를 올려서 받는 주기를 늘림 (level L이면 목표 주기의 L+1배)
+// 여유가 생긴 상태가 rampUpHoldNs 동안 유지되면 한 단계씩 되돌림
+// 발열이 심하면 추론 스레드 수도 줄임
+// 시간은 호출하는 쪽에서 넘겨주므로 테스트에서는 가상의 시간을 사용할 수 있음
+// shouldAdmit()은 카메라 스레드, recordInference()는 추론 스레드, setThermalStatus()는 발열 listener에서 호출
+// 단계를 바꾸는 recordInference()와 setThermalStatus()는 같은 lock(this) 안에서 changeLevel()로만 바꿈
+public class InferenceScheduler {
+
+    // PowerManager.THERMAL_STATUS_* 와 같은 값
+    public static final int THERMAL_NONE = 0;
+    public static final int THERMAL_LIGHT = 1;
+    public static final int THERMAL_MODERATE = 2;
+    public static final int THERMAL_SEVERE = 3;
+
+    public static final int MAX_LEVEL = 3;
+
+    // 추론 시간(EMA)이 받는 주기의 HIGH_WATERMARK배를 넘으면 단계를 올리고,
+    // 한 단계 낮은 주기의 LOW_WATERMARK배보다 짧으면 단계를 내림
+    static final float HIGH_WATERMARK = 0.9f;
+    static final float LOW_WATERMARK = 0.6f;
+    private static final float EMA_WEIGHT = 0.2f;
+
+    private final long targetIntervalNs;
+    private final long cooldownNs;        // 단계를 올린 뒤 다시 올리기까지 기다리는 시간
+    private final long rampUpHoldNs;      // 여유가 이 시간 동안 유지되어야 단계를 내림
+    private final int maxThreads;
+
+    private volatile int level = 0;
+    private volatile int thermalStatus = THERMAL_NONE;
+    private long nextAdmitNs = Long.MIN_VALUE;   // 카메라 스레드에서만 사용
+
+    // lock(this) 안에서만 사용
+    private float latencyEmaNs = 0;
+    private long lastChangeNs;
+    private long headroomSinceNs = -1;
+
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    public InferenceScheduler(long targetIntervalNs, long cooldownNs, long rampUpHoldNs,
+                              int maxThreads) {
+        if (targetIntervalNs <= 0 || maxThreads < 1) {
+            throw new IllegalArgumentException("Interval and thread count must be positive.");
+        }
+        this.targetIntervalNs = targetIntervalNs;
+        this.cooldownNs = cooldownNs;
+        this.rampUpHoldNs = rampUpHoldNs;
+        this.maxThreads = maxThreads;
+    }
+
+    // 이 프레임을 파이프라인에 넘길지 결정. 평균적으로 getAdmitIntervalNs()마다 하나씩 받음
+    public boolean shouldAdmit(long nowNs) {
+        if (nowNs < nextAdmitNs) {
+            throttledCount.incrementAndGet();
+            return false;
+        }
+        // 카메라 프레임 간격이 조금씩 흔들려도 평균 주기는 유지되도록 이전 예정 시간 기준으로 계산
+        // 오래 쉬었다가 들어온 경우에는 밀린 만큼 몰아서 받지 않도록 반 주기까지만 앞당김
+        long interval = getAdmitIntervalNs();
+        nextAdmitNs = Math.max(nextAdmitNs, nowNs - interval / 2) + interval;
+        admittedCount.incrementAndGet();
+        return true;
+    }
+
+    // 추론이 끝날 때마다 걸린 시간을 기록하고 단계를 조정
+    public synchronized void recordInference(long latencyNs, long nowNs) {
+        latencyEmaNs = latencyEmaNs == 0 ? latencyNs
+                : latencyEmaNs + EMA_WEIGHT * (latencyNs - latencyEmaNs);
+
+        int current = level;
+        int minLevel = minLevelFor(thermalStatus);
+        if (current < minLevel) {
+            changeLevel(minLevel, nowNs);
+            return;
+        }
+        if (latencyEmaNs > HIGH_WATERMARK * intervalFor(current)) {
+            headroomSinceNs = -1;
+            if (current < MAX_LEVEL && nowNs - lastChangeNs >= cooldownNs) {
+                changeLevel(current + 1, nowNs);
+            }
+        } else if (current > minLevel && latencyEmaNs < LOW_WATERMARK * intervalFor(current - 1)) {
+            if (headroomSinceNs < 0) {
+                headroomSinceNs = nowNs;
+            } else if (nowNs - headroomSinceNs >= rampUpHoldNs) {
+                changeLevel(current - 1, nowNs);
+            }
+        } else {
+            headroomSinceNs = -1;
+        }
+    }
+
+    // 발열 상태가 바뀌면 호출. 발열이 심해지면 바로 단계를 올림
+    public void setThermalStatus(int status) {
+        setThermalStatus(status, System.nanoTime());
+    }
+
+    public synchronized void setThermalStatus(int status, long nowNs) {
+        thermalStatus = status;
+        int minLevel = minLevelFor(status);
+        if (level < minLevel) {
+            changeLevel(minLevel, nowNs);
+        }
+    }
+
+    private void changeLevel(int newLevel, long nowNs) {
+        level = newLevel;
+        lastChangeNs = nowNs;
+        headroomSinceNs = -1;
+    }
+
+    private static int minLevelFor(int thermalStatus) {
+        if (thermalStatus >= THERMAL_SEVERE) {
+            return MAX_LEVEL;
+        } else if (thermalStatus >= THERMAL_MODERATE) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private long intervalFor(int level) {
+        return targetIntervalNs * (level + 1);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getThermalStatus() {
+        return thermalStatus;
+    }
+
+    public long getAdmitIntervalNs() {
+        return intervalFor(level);
+    }
+
+    // 발열 상태에 맞는 추론 스레드 수
+    public int getNumThreads() {
+        int status = thermalStatus;
+        if (status >= THERMAL_SEVERE) {
+            return 1;
+        } else if (status >= THERMAL_MODERATE) {
+            return Math.max(1, maxThreads / 2);
+        }
+        return maxThreads;
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+}
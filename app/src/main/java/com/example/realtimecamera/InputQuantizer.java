@@ -0,0 +1,48 @@
+package com.example.realtimecamera;
+
+import org.tensorflow.lite.DataType;
+
+// quantized 모델 입력에 쓸 값을 픽셀 값(0~255)마다 미리 계산해 둔 표
+// float 모델과 같이 0~1로 정규화한 값을 입력 텐서의 scale, zero point로 quantize 함
+//   q = round(pixel / 255 / scale) + zeroPoint  (uint8은 0~255, int8은 -128~127로 자름)
+// 픽셀 값은 256가지뿐이므로 픽셀마다 곱셈, 반올림을 하지 않고 표에서 찾아서 씀
+// 값을 지정하지 않으면 scale 1/255 : uint8은 픽셀 값 그대로, int8은 zero point -128
+// 한 객체를 여러 스레드에서 동시에 사용하면 안 됨.
+class InputQuantizer {
+
+    static final float DEFAULT_SCALE = 1.0f / 255.0f;
+
+    private float scale = 0;          // 0이면 기본값 사용
+    private int zeroPoint;
+    private final byte[] table = new byte[256];
+    private DataType tableType;       // table을 만든 입력 타입. null이면 다시 만들어야 함
+
+    // 입력 텐서의 quantizationParams() 값
+    void set(float scale, int zeroPoint) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Invalid input scale: " + scale);
+        }
+        if (scale != this.scale || zeroPoint != this.zeroPoint) {
+            this.scale = scale;
+            this.zeroPoint = zeroPoint;
+            tableType = null;
+        }
+    }
+
+    // 픽셀 값을 index로 찾는 입력 값 표. 타입이나 quantization 값이 바뀔 때만 다시 계산
+    byte[] table(DataType type) {
+        if (type != tableType) {
+            boolean signed = type == DataType.INT8;
+            float tableScale = scale > 0 ? scale : DEFAULT_SCALE;
+            int tableZeroPoint = scale > 0 ? zeroPoint : (signed ? -128 : 0);
+            int min = signed ? -128 : 0;
+            int max = min + 255;
+            for (int pixel = 0; pixel < 256; pixel++) {
+                long value = Math.round(pixel / (255.0 * tableScale)) + tableZeroPoint;
+                table[pixel] = (byte) Math.max(min, Math.min(max, value));
+            }
+            tableType = type;
+        }
+        return table;
+    }
+}
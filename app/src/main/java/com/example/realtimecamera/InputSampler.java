@@ -0,0 +1,100 @@
+package com.example.realtimecamera;
+
+// 모델 입력의 각 픽셀이 원본 이미지의 어느 픽셀에서 오는지 미리 계산해 두는 클래스
+// 기존 전처리(ResizeWithCropOrPadOp -> ResizeOp(NEAREST_NEIGHBOR) -> Rot90Op)와 같은 결과를 만듬
+// 1. 가운데를 min(width, height) 크기의 정사각형으로 자르고
+// 2. 모델 입력 크기로 nearest neighbor 축소
+// 3. 반시계 방향으로 90 * numRotation 도 회전
+// 원본 크기, 모델 크기, 회전이 바뀔 때만 새로 만들면 되므로 프레임마다 계산하지 않음
+// 가운데 대신 지정한 영역(CropRegion)을 잘라서 모델 입력 크기로 늘이거나 줄일 수도 있음
+class InputSampler {
+
+    final int cropLeft, cropTop, cropWidth, cropHeight;
+    final int dstWidth, dstHeight;
+    final int numRotation;
+
+    // 출력 순서(행 우선)대로 원본 좌표를 저장
+    final int[] sourceX;
+    final int[] sourceY;
+
+    // 가운데를 정사각형으로 자름
+    InputSampler(int srcWidth, int srcHeight, int dstWidth, int dstHeight, int numRotation) {
+        this((srcWidth - Math.min(srcWidth, srcHeight)) / 2,
+                (srcHeight - Math.min(srcWidth, srcHeight)) / 2,
+                Math.min(srcWidth, srcHeight), Math.min(srcWidth, srcHeight),
+                dstWidth, dstHeight, numRotation);
+    }
+
+    // 원본의 (cropLeft, cropTop, cropWidth, cropHeight) 영역을 자름
+    InputSampler(int cropLeft, int cropTop, int cropWidth, int cropHeight,
+                 int dstWidth, int dstHeight, int numRotation) {
+        this.cropLeft = cropLeft;
+        this.cropTop = cropTop;
+        this.cropWidth = cropWidth;
+        this.cropHeight = cropHeight;
+        this.dstWidth = dstWidth;
+        this.dstHeight = dstHeight;
+        this.numRotation = normalizeRotation(numRotation);
+
+        // 회전 전 이미지 크기. 90도, 270도 회전이면 가로 세로가 바뀜
+        boolean swap = (this.numRotation & 1) == 1;
+        int resizedWidth = swap ? dstHeight : dstWidth;
+        int resizedHeight = swap ? dstWidth : dstHeight;
+
+        sourceX = new int[dstWidth * dstHeight];
+        sourceY = new int[dstWidth * dstHeight];
+        int index = 0;
+        for (int y = 0; y < dstHeight; y++) {
+            for (int x = 0; x < dstWidth; x++) {
+                // 회전된 좌표를 회전 전 좌표로 되돌림
+                int rx, ry;
+                switch (this.numRotation) {
+                    case 1:
+                        rx = resizedWidth - 1 - y;
+                        ry = x;
+                        break;
+                    case 2:
+                        rx = resizedWidth - 1 - x;
+                        ry = resizedHeight - 1 - y;
+                        break;
+                    case 3:
+                        rx = y;
+                        ry = resizedHeight - 1 - x;
+                        break;
+                    default:
+                        rx = x;
+                        ry = y;
+                        break;
+                }
+                // 픽셀 중심 기준 nearest neighbor
+                sourceX[index] = cropLeft + (2 * rx + 1) * cropWidth / (2 * resizedWidth);
+                sourceY[index] = cropTop + (2 * ry + 1) * cropHeight / (2 * resizedHeight);
+                index++;
+            }
+        }
+    }
+
+    boolean matches(int srcWidth, int srcHeight, int dstWidth, int dstHeight, int numRotation) {
+        int cropSize = Math.min(srcWidth, srcHeight);
+        return matches((srcWidth - cropSize) / 2, (srcHeight - cropSize) / 2, cropSize, cropSize,
+                dstWidth, dstHeight, numRotation);
+    }
+
+    boolean matches(CropRegion region, int dstWidth, int dstHeight, int numRotation) {
+        return matches(region.left, region.top, region.width, region.height,
+                dstWidth, dstHeight, numRotation);
+    }
+
+    private boolean matches(int cropLeft, int cropTop, int cropWidth, int cropHeight,
+                            int dstWidth, int dstHeight, int numRotation) {
+        return this.cropLeft == cropLeft && this.cropTop == cropTop
+                && this.cropWidth == cropWidth && this.cropHeight == cropHeight
+                && this.dstWidth == dstWidth && this.dstHeight == dstHeight
+                && this.numRotation == normalizeRotation(numRotation);
+    }
+
+    // 음수 회전(시계 방향)도 0~3 범위로 맞춤
+    static int normalizeRotation(int numRotation) {
+        return ((numRotation % 4) + 4) % 4;
+    }
+}
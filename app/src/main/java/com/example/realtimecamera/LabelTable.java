@@ -0,0 +1,93 @@
+package com.example.realtimecamera;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+// 레이블 파일(한 줄에 레이블 하나)을 String 1000여 개 대신 char 배열 하나와 시작 위치 배열로 저장
+// String은 실제로 화면에 나온 레이블만 처음 요청될 때 만들고 캐시하므로
+// 프레임마다 새 String을 만들지 않음
+// List<String>으로 사용할 수 있으므로 TopKDecoder에 그대로 넘김
+public class LabelTable extends AbstractList<String> {
+
+    private final char[] chars;       // 모든 레이블을 이어 붙인 배열
+    private final int[] offsets;      // i번째 레이블은 chars[offsets[i]] ~ chars[offsets[i + 1]]
+    private final String[] cache;     // 한 번 만든 String. 여러 스레드에서 읽어도 같은 내용이므로 동기화하지 않음
+
+    private LabelTable(char[] chars, int[] offsets, int size) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.cache = new String[size];
+    }
+
+    // UTF-8 텍스트에서 읽음. 줄 끝의 \r은 제거하고 마지막 빈 줄은 무시
+    public static LabelTable read(InputStream input) throws IOException {
+        char[] chars = new char[8192];
+        int length = 0;
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            int read;
+            while ((read = reader.read(chars, length, chars.length - length)) != -1) {
+                length += read;
+                if (length == chars.length) {
+                    chars = Arrays.copyOf(chars, chars.length * 2);
+                }
+            }
+        }
+
+        // 줄 단위로 나누면서 줄바꿈 문자를 빼고 앞으로 당김
+        int[] offsets = new int[64];
+        int size = 0;
+        int out = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && chars[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && chars[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (i == length && lineEnd == lineStart) {
+                break;      // 파일 끝의 빈 줄
+            }
+            if (size + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[size++] = out;
+            System.arraycopy(chars, lineStart, chars, out, lineEnd - lineStart);
+            out += lineEnd - lineStart;
+            lineStart = i + 1;
+        }
+        offsets[size] = out;
+        return new LabelTable(Arrays.copyOf(chars, out), Arrays.copyOf(offsets, size + 1), size);
+    }
+
+    @Override
+    public String get(int index) {
+        String label = cache[index];
+        if (label == null) {
+            label = new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+            cache[index] = label;
+        }
+        return label;
+    }
+
+    @Override
+    public int size() {
+        return cache.length;
+    }
+
+    // String을 만들지 않고 레이블을 이어 붙임
+    public void appendTo(StringBuilder builder, int index) {
+        builder.append(chars, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    // 레이블 데이터가 차지하는 대략적인 메모리 (캐시된 String 제외)
+    public long getFootprintBytes() {
+        return 2L * chars.length + 4L * offsets.length + 4L * cache.length;
+    }
+}
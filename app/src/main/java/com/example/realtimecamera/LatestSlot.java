@@ -0,0 +1,45 @@
+package com.example.realtimecamera;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// 값을 하나만 보관하는 lock-free 교환 슬롯. 새 값이 들어오면 이전 값을 밀어냄 (latest wins)
+// 밀려난 값은 offer()가 리턴하므로 호출한 쪽에서 반납(close, 재사용)해야 함
+// 꺼내는 스레드(consumer)는 하나만 있어야 함
+class LatestSlot<T> {
+
+    private final AtomicReference<T> item = new AtomicReference<>();
+    private volatile Thread waiter;
+
+    // 값을 넣고, 아직 꺼내지 않은 이전 값이 있으면 리턴
+    T offer(T value) {
+        T previous = item.getAndSet(value);
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return previous;
+    }
+
+    // 값이 없으면 null
+    T poll() {
+        return item.getAndSet(null);
+    }
+
+    // 값이 들어올 때까지 대기
+    T take() throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            T value;
+            while ((value = item.getAndSet(null)) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return value;
+        } finally {
+            waiter = null;
+        }
+    }
+}
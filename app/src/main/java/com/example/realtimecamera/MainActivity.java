@@ -7,25 +7,34 @@ import android.Manifest;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCharacteristics;
 import android.hardware.camera2.CameraManager;
-import android.media.Image;
 import android.media.ImageReader;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.SystemClock;
 import android.util.Log;
-import android.util.Pair;
 import android.util.Size;
+import android.view.Choreographer;
 import android.view.Surface;
+import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -33,22 +42,128 @@ public class MainActivity extends AppCompatActivity {
             Manifest.permission.CAMERA;
     private static final int PERMISSION_REQUEST_CODE = 1;   //사용 권한을 요청하고 구분하기 위한 변수
     private TextView textView;     //결과를 출력할 텍스트 뷰
-    private Classifier cls;        //분류기
+    // 결과는 화면이 갱신될 때(vsync) 한 번만 출력. 결과가 자주 나와도 UI 스레드에 메시지가 쌓이지 않음
+    private Choreographer choreographer;
+    private final AtomicBoolean resultFramePending = new AtomicBoolean(false);
+    private final ResultFormatter resultFormatter = new ResultFormatter();  // UI 스레드에서만 사용
+    private Classifier cls;        //분류기. 모델 정보와 전처리에 사용
+    private ClassifierPool classifiers;  // 추론 스레드마다 하나씩 사용하는 분류기
+
+    // 로드된 모델(Interpreter)이 사용할 수 있는 메모리 한도
+    // 넘으면 가장 오래 사용하지 않은 모델부터 닫음
+    private static final long MODEL_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+    private ModelRegistry<ClassifierPool> models;
+    // 모델 로드를 하는 스레드. 로드가 끝나면 classifierReady가 완료됨
+    private final ExecutorService modelExecutor = Executors.newSingleThreadExecutor();
+    private CompletableFuture<ClassifierPool> classifierReady;
+    private boolean resumed = false;
+
+    // 콜드 스타트 시간 측정. onCreate부터 모델 준비, 첫 결과 출력까지
+    private long createNs;
+    private boolean firstResultShown = false;   // UI 스레드에서만 사용
+
+    // 모델을 처음 선택할 때 ModelRegistry가 호출
+    private final ModelRegistry.Loader<ClassifierPool> modelLoader =
+            new ModelRegistry.Loader<ClassifierPool>() {
+                @Override
+                public ClassifierPool load(ModelSpec spec) throws IOException {
+                    Classifier classifier = new Classifier(MainActivity.this, spec,
+                            new Classifier.Options()
+                                    .setNumThreads(MAX_THREADS / INFERENCE_WORKERS)
+                                    .setUseXnnpack(true));
+                    classifier.init();
+                    Log.d(TAG, "Loaded " + spec + ", backend : " + classifier.getBackend());
+                    return new ClassifierPool(classifier, INFERENCE_WORKERS);
+                }
+
+                @Override
+                public long getFootprint(ClassifierPool pool) {
+                    return pool.getFootprintBytes();
+                }
+
+                @Override
+                public void close(ClassifierPool pool) {
+                    Log.d(TAG, "Closed " + pool.getSpec());
+                    pool.close();
+                }
+            };
+
+    // 성능 측정 결과를 화면에 표시할지 여부
+    private static final boolean SHOW_METRICS = BuildConfig.DEBUG;
+    // 성능 측정 결과를 logcat에 출력하는 주기
+    private static final long METRICS_REPORT_INTERVAL_NS = TimeUnit.SECONDS.toNanos(5);
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private TextView metricsView;  //성능 측정 결과를 출력할 텍스트 뷰
+
+    // 기기를 들고 가만히 있을 때 같은 장면을 다시 추론하지 않도록 비슷한 프레임을 걸러냄
+    // 16x16 밝기 썸네일의 픽셀당 평균 차이가 SCENE_CHANGE_THRESHOLD 이하이면 이전 결과를 재사용
+    // 장면이 그대로여도 SCENE_MAX_STALE_NS마다 한 번은 다시 추론
+    private static final float SCENE_CHANGE_THRESHOLD = 4f;
+    private static final long SCENE_MAX_STALE_NS = TimeUnit.SECONDS.toNanos(1);
+    private final FrameChangeDetector changeDetector =
+            new FrameChangeDetector(SCENE_CHANGE_THRESHOLD, SCENE_MAX_STALE_NS);
+    // 결과가 프레임마다 깜빡이지 않도록 상위 RESULT_TOP_K개의 점수를 시간에 대해 평균
+    // 다른 클래스의 평균 점수가 SMOOTHING_SWITCH_MARGIN 이상 높아져야 표시하는 결과를 바꿈
+    private static final int RESULT_TOP_K = 5;
+    private static final long SMOOTHING_TIME_CONSTANT_NS = TimeUnit.MILLISECONDS.toNanos(300);
+    private static final float SMOOTHING_SWITCH_MARGIN = 0.1f;
+    private ResultSmoother smoother;   // 결과를 순서대로 받는 deliver()에서만 사용
+
+    // 마지막으로 추론한 결과와 그 기준 프레임 번호. 추론 스레드끼리 lastResult로 동기화
+    private final ClassificationResult lastResult = new ClassificationResult(RESULT_TOP_K);
+    private long lastSceneId = -1;
+
+    // 추론 시간과 발열 상태에 따라 파이프라인에 넘길 프레임 수를 조절
+    // 초당 15개의 결과를 목표로 하고, 느려지거나 뜨거워지면 받는 주기를 늘림
+    // 카메라도 이 frame rate에 맞춰서 버려질 프레임을 만들지 않도록 함
+    private static final int TARGET_RESULTS_PER_SECOND = 15;
+    private static final int MAX_THREADS = 4;
+    private final InferenceScheduler scheduler = new InferenceScheduler(
+            TimeUnit.SECONDS.toNanos(1) / TARGET_RESULTS_PER_SECOND,
+            TimeUnit.SECONDS.toNanos(1),
+            TimeUnit.SECONDS.toNanos(3),
+            MAX_THREADS);
+    private PowerManager.OnThermalStatusChangedListener thermalListener;
+
+    // 코어가 8개 이상인 기기에서는 Interpreter를 두 개 두고 연속된 프레임을 동시에 추론
+    // 한 Interpreter로는 목표 주기를 맞추지 못할 때 처리량을 늘림. 스레드는 MAX_THREADS를 나눠 가짐
+    private static final int INFERENCE_WORKERS =
+            Runtime.getRuntime().availableProcessors() >= 8 ? 2 : 1;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createNs = SystemClock.elapsedRealtimeNanos();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
         //액티비티가 실행되는 동안 화면이 계속 켜져 있도록 설정
         getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
         textView = findViewById(R.id.idMainTV);
-        try {
-            cls = new Classifier(this);    //  분류기 초기화
-            cls.init();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
+        choreographer = Choreographer.getInstance();
+        metricsView = findViewById(R.id.idMetricsTV);
+        metricsView.setVisibility(SHOW_METRICS ? View.VISIBLE : View.GONE);
+        // 사용할 수 있는 모델 등록. 실제 로드는 처음 선택할 때 함
+        models = new ModelRegistry<>(modelLoader, MODEL_MEMORY_BUDGET_BYTES);
+        models.register(Classifier.DEFAULT_MODEL);
+        // 분류기 초기화는 별도 스레드에서 하고, 그동안 카메라 미리보기를 먼저 시작
+        classifierReady = CompletableFuture.supplyAsync(() -> {
+            try {
+                return selectModel(Classifier.DEFAULT_MODEL.getName());
+            } catch (IOException ioe) {
+                throw new CompletionException(ioe);
+            }
+        }, modelExecutor);
+        classifierReady.whenComplete((classifier, error) ->
+                runOnUiThread(() -> onClassifierReady(error)));
+
+        // 녹화 파일을 재생하는 경우에는 카메라를 사용하지 않음
+        String replayName = getIntent().getStringExtra(EXTRA_REPLAY);
+        if (replayName != null) {
+            startReplay(replayName);
+            return;
         }
+        cameraSource = new CameraFrameSource(ANALYSIS_MAX_IMAGES);
+        frameSource = cameraSource;
 
         // 동적 권한 요청
         if(checkSelfPermission(CAMERA_PERMISSION) == PackageManager.PERMISSION_GRANTED) {
@@ -86,106 +201,338 @@ public class MainActivity extends AppCompatActivity {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
     }
 
-    // 스레드가 작업을 수행하다가 화면 출력을 하기 위해 사용하는 객체
-    private Handler handler;
-
-    // synchronised는 동기화 메소드를 만들어줌.
-    // 이 메소드는 동시에 호출되지 않음
-    protected synchronized void runInBackground(final Runnable r) {
-        if (handler != null) {
-            // MessageQueue에 message 전달
-            // POST로 호출하면 다른 작업이 없을 때 작업 수행
-            handler.post(r);
-        }
-    }
+    // 녹화 파일 재생과 녹화. 파일은 앱의 외부 저장소(getExternalFilesDir)에 있는 이름으로 지정
+    //   adb shell am start -n com.example.realtimecamera/.MainActivity --es record frames.yuv
+    //   adb shell am start -n com.example.realtimecamera/.MainActivity --es replay frames.yuv
+    // replayRealTime을 false로 주면 기록할 때의 간격을 무시하고 최대 속도로 재생
+    public static final String EXTRA_REPLAY = "replay";
+    public static final String EXTRA_REPLAY_REAL_TIME = "replayRealTime";
+    public static final String EXTRA_RECORD = "record";
+    // 화면 미리보기 없이 분석만 하거나(analysisOnly) torch를 켜서(torch) 실행
+    //   adb shell am start -n com.example.realtimecamera/.MainActivity --ez analysisOnly true
+    public static final String EXTRA_ANALYSIS_ONLY = "analysisOnly";
+    public static final String EXTRA_TORCH = "torch";
+    // 기록 스레드가 쓰기를 기다리는 동안 더 받아 둘 수 있는 프레임 수
+    private static final int RECORD_BUFFERS = 8;
+
+    // 파이프라인에 프레임을 넣는 곳. 카메라 또는 녹화 파일
+    private FrameSource frameSource;
+    private CameraFrameSource cameraSource;    // 카메라를 사용할 때만 존재
+    private volatile FrameRecorder recorder;   // 녹화 중일 때만 존재
+
+    // 카메라 ImageReader가 가지는 이미지 수
+    // 파이프라인은 변환 대기와 변환 중에 하나씩 이미지를 잡고 있고, acquireLatestImage()가 하나를 더 사용
+    private static final int ANALYSIS_MAX_IMAGES = 3;
+
+    // 파이프라인에서 돌려쓰는 프레임 개수
+    // 변환 중, 추론 대기, 출력 대기 각각 하나씩과 추론 스레드마다 하나씩
+    private static final int FRAME_POOL_SIZE = 3 + INFERENCE_WORKERS;
+
+    // 변환 -> 추론 -> 출력 파이프라인. Activity가 활성화 되어 있는 동안만 존재
+    private volatile FramePipeline<SourceFrame, TensorFrame> pipeline;
+
+    // 파이프라인 각 단계에서 할 일
+    private final FramePipeline.StageCallback<SourceFrame, TensorFrame> stageCallback =
+            new FramePipeline.StageCallback<SourceFrame, TensorFrame>() {
+                @Override
+                public void convert(SourceFrame source, TensorFrame frame) {
+                    // RGB Bitmap을 만들지 않고 plane 정보를 분류기에 바로 전달
+                    YuvFrame yuvFrame = source.getYuv();
+                    frame.timestampNs = yuvFrame.timestampNs;
+                    frame.sceneUnchanged = changeDetector.isUnchanged(yuvFrame, System.nanoTime());
+                    frame.sceneId = changeDetector.getSceneId();
+                    // yuv 이미지에서 모델 입력에 필요한 픽셀만 변환
+                    // 기준 프레임이 추론 전에 버려졌으면 이 프레임을 추론해야 하므로 항상 변환
+                    cls.preprocess(yuvFrame, source.getRotation(), frame.input);
+                }
 
-    // 카메라 미리보기 크기
-    private int previewWidth = 0;
-    private int previewHeight = 0;
+                @Override
+                public void release(SourceFrame source) {
+                    source.close();
+                }
 
-    private Bitmap rgbFrameBitmap = null;      // 카메라 이미지
+                @Override
+                public void infer(int worker, TensorFrame frame) {
+                    synchronized (lastResult) {
+                        if (frame.sceneUnchanged && frame.sceneId == lastSceneId) {
+                            // 마지막으로 추론한 프레임과 같은 장면. 결과만 복사
+                            frame.result.copyFrom(lastResult);
+                            frame.inferenceNs = 0;
+                            changeDetector.recordReuse();
+                            return;
+                        }
+                    }
+                    Classifier classifier = classifiers.get(worker);
+                    // 발열 단계가 바뀔 때만 값이 바뀜. 바뀌면 Interpreter를 새로 만듦
+                    classifier.setNumThreads(
+                            Math.max(1, scheduler.getNumThreads() / INFERENCE_WORKERS));
+                    long startNs = System.nanoTime();
+                    classifier.classifyTopK(frame.input, RESULT_TOP_K, frame.result);
+                    frame.inferenceNs = System.nanoTime() - startNs;
+                    changeDetector.recordInference(frame.inferenceNs);
+                    synchronized (lastResult) {
+                        // 다른 추론 스레드가 더 나중 장면의 결과를 이미 저장했으면 덮어쓰지 않음
+                        if (frame.sceneId >= lastSceneId) {
+                            lastResult.copyFrom(frame.result);
+                            lastSceneId = frame.sceneId;
+                        }
+                    }
+                }
 
-    private boolean isProcessingFrame = false; // 작업중인지 확인. boolean 변수는 앞에 is를 붙여 구분.
+                // 프레임 순서대로 호출되므로 시간 평균과 스케줄러 조정은 여기서 함
+                @Override
+                public void deliver(TensorFrame frame) {
+                    if (frame.inferenceNs > 0) {
+                        // 추론 스레드가 여러 개면 그만큼 결과가 자주 나오므로 나눠서 기록
+                        scheduler.recordInference(frame.inferenceNs / INFERENCE_WORKERS,
+                                System.nanoTime());
+                    }
+                    smoother.update(frame.result, frame.timestampNs, frame.smoothed);
+                    // 카메라 timestamp는 부팅 후 경과 시간 기준 (TIMESTAMP_SOURCE_REALTIME)
+                    // 기준이 다른 기기에서는 말이 안 되는 값이 나오므로 기록하지 않음
+                    long latencyNs = SystemClock.elapsedRealtimeNanos() - frame.timestampNs;
+                    if (latencyNs > 0 && latencyNs < TimeUnit.SECONDS.toNanos(10)) {
+                        metrics.record(PipelineMetrics.Metric.CAMERA_TO_RESULT, latencyNs);
+                    }
+                }
 
-    private int sensorOrientation = 0;         // 기기 방향을 위한 변수
+                @Override
+                public void publish() {
+                    // 아직 출력하지 않은 결과가 있으면 다음 화면 갱신 때 같이 최신 결과만 출력됨
+                    if (resultFramePending.compareAndSet(false, true)) {
+                        choreographer.postFrameCallback(showResult);
+                    }
+                    long now = System.nanoTime();
+                    final FramePipeline<SourceFrame, TensorFrame> current = pipeline;
+                    if (current != null && metrics.isReportDue(now, METRICS_REPORT_INTERVAL_NS)) {
+                        reportMetrics(current, now);
+                    }
+                }
+            };
+
+    // 측정 결과를 logcat에 출력하고, 설정되어 있으면 화면에도 출력
+    private void reportMetrics(FramePipeline<SourceFrame, TensorFrame> current, long now) {
+        final String report = metrics.report(now,
+                current.getProcessedCount(FramePipeline.Stage.INFER),
+                current.getTotalDroppedCount());
+        Log.i(TAG, report);
+        Log.i(TAG, String.format(Locale.ENGLISH,
+                "scene reuse : %d/%d (%.1f%%), saved inference : %d ms",
+                changeDetector.getReusedCount(),
+                changeDetector.getReusedCount() + changeDetector.getInferenceCount(),
+                changeDetector.getHitRate() * 100,
+                TimeUnit.NANOSECONDS.toMillis(changeDetector.getSavedInferenceNs())));
+        Log.i(TAG, String.format(Locale.ENGLISH,
+                "scheduler level : %d, thermal : %d, threads : %d, admitted : %d, throttled : %d",
+                scheduler.getLevel(), scheduler.getThermalStatus(), scheduler.getNumThreads(),
+                scheduler.getAdmittedCount(), scheduler.getThrottledCount()));
+        if (SHOW_METRICS) {
+            runOnUiThread(() -> metricsView.setText(report));
+        }
+    }
 
-    protected void processImage(ImageReader reader) {
-        if (previewWidth == 0 || previewHeight == 0) {
+    // 화면 갱신 때 UI 스레드에서 가장 최근 결과를 출력. 결과가 여러 개 쌓여도 마지막 것만 출력됨
+    private final Choreographer.FrameCallback showResult = frameTimeNanos -> {
+        // 결과를 가져가기 전에 풀어서 이후에 나온 결과는 다음 화면 갱신 때 출력되도록 함
+        resultFramePending.set(false);
+        final FramePipeline<SourceFrame, TensorFrame> current = pipeline;
+        if (current == null) {
+            return;
+        }
+        final TensorFrame frame = current.pollResult();
+        if (frame == null) {
             return;
         }
-        if(rgbFrameBitmap == null) {
-            rgbFrameBitmap = Bitmap.createBitmap(
-                    previewWidth,
-                    previewHeight,
-                    Bitmap.Config.ARGB_8888);
+        // 시간에 대해 평균한 결과를 출력. 문자열을 새로 만들지 않음
+        int length = resultFormatter.format(frame.getSmoothedResult());
+        current.recycle(frame);
+        textView.setText(resultFormatter.getChars(), 0, length);
+        if (!firstResultShown) {
+            firstResultShown = true;
+            Log.i(TAG, String.format(Locale.ENGLISH, "cold start - first result : %.1f ms",
+                    (SystemClock.elapsedRealtimeNanos() - createNs) / 1e6));
         }
-        if (isProcessingFrame) {
+    };
+
+    // 카메라 스레드(또는 재생 스레드)에서 호출됨. 녹화 중이면 기록하고 파이프라인에 넘기기만 함
+    private void onFrame(SourceFrame frame) {
+        final FramePipeline<SourceFrame, TensorFrame> current = pipeline;
+        final FrameRecorder currentRecorder = recorder;
+        if (currentRecorder != null) {
+            currentRecorder.record(frame.getYuv(), frame.getRotation());
+        }
+        // 파이프라인이 없거나 이번 프레임은 건너뛰는 차례이면 바로 반환
+        if (current == null || !scheduler.shouldAdmit(System.nanoTime())) {
+            frame.close();
             return;
         }
+        current.submit(frame);
+    }
 
-        isProcessingFrame = true;
+    // 녹화 파일을 카메라 대신 사용
+    private void startReplay(String name) {
+        File file = new File(getExternalFilesDir(null), name);
+        boolean realTime = getIntent().getBooleanExtra(EXTRA_REPLAY_REAL_TIME, true);
+        try {
+            RecordedFrameSource replay = new RecordedFrameSource(file, realTime,
+                    SystemClock::elapsedRealtimeNanos);
+            replay.setLooping(true);
+            frameSource = replay;
+            Log.i(TAG, "replay : " + file + ", frames : " + replay.getFrameCount()
+                    + ", real time : " + realTime);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open " + file, e);
+            Toast.makeText(this, "Failed to open " + name, Toast.LENGTH_LONG).show();
+        }
+    }
 
-        // 이미지 가져오기
-        final Image image = reader.acquireLatestImage();
-        if (image == null) {
-            isProcessingFrame = false;
+    private void startRecording() {
+        String name = getIntent().getStringExtra(EXTRA_RECORD);
+        if (name == null || cameraSource == null) {
             return;
         }
-
-        // yuv 포맷을 rbg로 변경
-        YuvToRgbConverter.yuvToRgb(this, image, rgbFrameBitmap);
-
-        // 람다를 이용한 Thread 처리
-        runInBackground(() -> {
-            if (cls != null && cls.isInitialized()) {
-                // 추론
-                final Pair<String, Float> output = cls.classify(rgbFrameBitmap,
-                        sensorOrientation);
-                runOnUiThread(() -> {
-                    // 추론한 결과를 출력
-                    String resultStr = String.format(Locale.ENGLISH,
-                            "class : %s, prob : %.2f%%",
-                            output.first, output.second * 100);
-                    textView.setText(resultStr);
-                });
-            }
-            image.close();
-            isProcessingFrame = false;
-        });
+        File file = new File(getExternalFilesDir(null), name);
+        try {
+            recorder = new FrameRecorder(file, RECORD_BUFFERS);
+            Log.i(TAG, "recording : " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record to " + file, e);
+        }
     }
 
+    // 남은 프레임을 모두 쓰고 닫음. 다시 onResume 되면 같은 파일 뒤에 이어서 기록
+    private void stopRecording() {
+        FrameRecorder current = recorder;
+        if (current == null) {
+            return;
+        }
+        recorder = null;
+        try {
+            current.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write recording", e);
+        }
+        Log.i(TAG, "recorded frames : " + current.getRecordedCount()
+                + ", dropped : " + current.getDroppedCount());
+    }
 
-    // Thread 참조 변수
-    private HandlerThread handlerThread;
-
-
-    // Activity가 활성화 될 때 Thread와 Handler 생성
+    // Activity가 활성화 될 때 파이프라인 생성
     @Override
     public synchronized void onResume() {
         super.onResume();
-        handlerThread = new HandlerThread("InferenceThread");
-        handlerThread.start();
-        handler = new Handler(handlerThread.getLooper());
+        resumed = true;
+        startPipeline();
+        startRecording();
+        if (frameSource != null) {
+            frameSource.start(this::onFrame);
+        }
+        // 발열 상태는 Android 10부터 받을 수 있음
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            scheduler.setThermalStatus(powerManager.getCurrentThermalStatus());
+            thermalListener = scheduler::setThermalStatus;
+            powerManager.addThermalStatusListener(thermalListener);
+        }
     }
 
-    // Activity가 중지되었을 때 Thread 중지
+    // Activity가 중지되었을 때 파이프라인 중지
     @Override
     public synchronized void onPause() {
-        handlerThread.quitSafely();
-        try {
-            handlerThread.join();
-            handlerThread = null;
-            handler = null;
-        } catch (final InterruptedException e) {
-            e.printStackTrace();
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+            powerManager.removeThermalStatusListener(thermalListener);
+            thermalListener = null;
         }
+        resumed = false;
+        if (frameSource != null) {
+            frameSource.stop();
+        }
+        stopRecording();
+        stopPipeline();
+        // 출력하지 못한 결과는 버림. 다시 시작할 때 출력 요청이 막혀 있지 않도록 함
+        choreographer.removeFrameCallback(showResult);
+        resultFramePending.set(false);
         super.onPause();
     }
 
+    // 현재 모델로 변환 -> 추론 -> 출력 파이프라인 생성
+    private void startPipeline() {
+        if (classifiers != null && classifiers.isInitialized()) {
+            List<TensorFrame> frames = new ArrayList<>();
+            for (int i = 0; i < FRAME_POOL_SIZE; i++) {
+                frames.add(new TensorFrame(cls.newInputBuffer(), RESULT_TOP_K));
+            }
+            smoother = new ResultSmoother(cls.getNumClasses(),
+                    SMOOTHING_TIME_CONSTANT_NS, SMOOTHING_SWITCH_MARGIN);
+            pipeline = new FramePipeline<>(stageCallback, new FramePool<>(frames),
+                    classifiers.getSize());
+            pipeline.start();
+        }
+    }
+
+    private void stopPipeline() {
+        if (pipeline != null) {
+            pipeline.stop();
+            Log.d(TAG, "dropped frames - acquire : "
+                    + pipeline.getDroppedCount(FramePipeline.Stage.ACQUIRE)
+                    + ", convert : " + pipeline.getDroppedCount(FramePipeline.Stage.CONVERT)
+                    + ", infer : " + pipeline.getDroppedCount(FramePipeline.Stage.INFER)
+                    + ", publish : " + pipeline.getDroppedCount(FramePipeline.Stage.PUBLISH));
+            FramePool<TensorFrame> framePool = pipeline.getFramePool();
+            Log.d(TAG, "frame pool - size : " + framePool.getSize()
+                    + ", reuse : " + framePool.getReuseCount()
+                    + ", miss : " + framePool.getMissCount());
+            pipeline = null;
+        }
+    }
+
+    // 실행 중에 모델 변경. 파이프라인을 멈추고 새 모델로 다시 시작
+    // 이전 모델은 메모리 한도 안에서 남겨 두므로 다시 선택할 때는 로드하지 않음
+    // 모델 로드에 시간이 걸릴 수 있으므로 UI 스레드가 아닌 곳에서 호출
+    public ClassifierPool selectModel(String name) throws IOException {
+        // 로드하는 동안 onResume, onPause가 기다리지 않도록 Activity 잠금 밖에서 로드
+        ClassifierPool next = models.acquire(name);
+        synchronized (this) {
+            if (next == classifiers) {
+                models.release(name);
+                return next;
+            }
+            stopPipeline();
+            if (classifiers != null) {
+                models.release(classifiers.getSpec().getName());
+            }
+            classifiers = next;
+            cls = next.getPrimary();
+            classifiers.setMetrics(metrics);
+            lastSceneId = -1;       // 이전 모델의 결과는 재사용하지 않음
+            if (resumed) {
+                startPipeline();
+            }
+        }
+        Log.d(TAG, "model : " + next.getSpec() + ", loaded models : " + models.getLoadedCount()
+                + " (" + models.getLoadedBytes() / 1024 + " KB)");
+        return next;
+    }
+
+    // 처음 모델 로드가 끝나면 UI 스레드에서 호출
+    private void onClassifierReady(Throwable error) {
+        if (error != null) {
+            Log.e(TAG, "Failed to load model", error);
+            Toast.makeText(this, "Failed to load model", Toast.LENGTH_LONG).show();
+            return;
+        }
+        Log.i(TAG, String.format(Locale.ENGLISH, "cold start - model ready : %.1f ms",
+                (SystemClock.elapsedRealtimeNanos() - createNs) / 1e6));
+    }
+
     // Activity를 파괴 - 메모리 정리
     @Override
     protected synchronized void onDestroy() {
-        cls.finish();
+        // 분류기를 닫기 전에 추론 중인 프레임이 없도록 파이프라인을 멈춤 (onPause에서 이미 멈췄으면 그대로)
+        stopPipeline();
+        // 아직 로드 중인 모델이 있으면 로드가 끝난 뒤에 닫음
+        modelExecutor.execute(models::close);
+        modelExecutor.shutdown();
         super.onDestroy();
     }
 
@@ -238,27 +585,57 @@ public class MainActivity extends AppCompatActivity {
 
 
     public static final String TAG = "[IC]MainActivity";
+
+    // CameraFragment의 카메라 스레드에서 호출됨
+    private final CameraFragment.ConnectionCallback cameraConnection =
+            new CameraFragment.ConnectionCallback() {
+                @Override
+                public void onPreviewSizeChosen(Size size, int rotation) {
+                    int sensorOrientation = rotation - getScreenOrientation();
+                    cameraSource.setRotation(sensorOrientation);
+                    Log.d(TAG, "analysis size : " + size
+                            + ", sensorOrientation : " + sensorOrientation);
+                }
+
+                // 파이프라인이 아직 잡고 있는 이미지는 파이프라인이 멈추거나 처리를 끝내면 반납됨
+                @Override
+                public void onCameraClosing(ImageReader reader, long timeoutMs) {
+                    long startNs = SystemClock.elapsedRealtimeNanos();
+                    boolean drained = cameraSource.drain(reader, timeoutMs);
+                    Log.d(TAG, String.format(Locale.ENGLISH,
+                            "camera closing - drained : %b, outstanding : %d, waited : %.1f ms",
+                            drained, cameraSource.getOutstandingCount(),
+                            (SystemClock.elapsedRealtimeNanos() - startNs) / 1e6));
+                }
+
+                @Override
+                public void onCameraClosed(ImageReader reader) {
+                    cameraSource.finishDrain(reader);
+                }
+            };
     protected void setFragment() {
-        // 모델 입력 사이즈 받아오기
-        Size inputSize = cls.getModelInputSize();
+        // 모델 입력 사이즈. 모델을 로드하기 전에 카메라를 시작하므로 예상 값을 사용
+        ModelSpec spec = Classifier.DEFAULT_MODEL;
+        Size inputSize = new Size(spec.getInputWidth(), spec.getInputHeight());
         // 사용할 카메라 id 받아오기
         String cameraId = chooseCamera();
+        CaptureProfile profile = new CaptureProfile()
+                .setTargetFps(TARGET_RESULTS_PER_SECOND)
+                .setTorch(getIntent().getBooleanExtra(EXTRA_TORCH, false))
+                .setAnalysisOnly(getIntent().getBooleanExtra(EXTRA_ANALYSIS_ONLY, false));
 
         // 모델의 크기를 가지고 카메라 화면의 크기 설정
         if(inputSize.getWidth() > 0 && inputSize.getHeight() > 0 && !cameraId.isEmpty()) {
             Fragment fragment = CameraFragment.newInstance(
-                    (size, rotation) -> {
-                        previewWidth = size.getWidth();
-                        previewHeight = size.getHeight();
-                        sensorOrientation = rotation - getScreenOrientation();
-                    },
+                    cameraConnection,
                     // 카메라로부터 이미지 받아오기
-                    reader->processImage(reader),
+                    cameraSource,
                     inputSize,
-                    cameraId);
+                    cameraId,
+                    ANALYSIS_MAX_IMAGES,
+                    profile);
 
-            Log.d(TAG, "inputSize : " + cls.getModelInputSize() +
-                    "sensorOrientation : " + sensorOrientation);
+            Log.d(TAG, "inputSize : " + inputSize + ", capture profile : " + profile);
             // 프래그먼트 설정
             getFragmentManager().beginTransaction().replace(
                     R.id.idMainFL, fragment).commit();
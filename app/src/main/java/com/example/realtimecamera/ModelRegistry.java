@@ -0,0 +1,149 @@
+package com.example.realtimecamera;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 여러 모델을 등록해 두고 처음 사용할 때 로드하는 클래스
+// 로드된 모델은 최근에 사용한 순서(LRU)로 유지하고, 메모리 사용량의 합이 maxBytes를 넘으면
+// 가장 오래 사용하지 않은 모델부터 닫음. 사용 중인(acquire 후 release 전) 모델은 닫지 않음
+// 모델을 바꿨다가 다시 돌아올 때 메모리에 남아 있으면 다시 로드하지 않음
+// 모델을 만들고 닫는 방법은 Loader로 받으므로 Classifier 없이도 테스트 가능
+public class ModelRegistry<M> {
+
+    public interface Loader<M> {
+        M load(ModelSpec spec) throws IOException;
+
+        long getFootprint(M model);     // 모델이 차지하는 메모리(바이트)
+
+        void close(M model);
+    }
+
+    private static class Entry<M> {
+        final M model;
+        final long footprint;
+        int users = 0;
+
+        Entry(M model, long footprint) {
+            this.model = model;
+            this.footprint = footprint;
+        }
+    }
+
+    private final Loader<M> loader;
+    private final long maxBytes;
+    private final Map<String, ModelSpec> specs = new LinkedHashMap<>();
+    // accessOrder = true : get()할 때마다 맨 뒤로 이동하므로 맨 앞이 가장 오래 사용하지 않은 모델
+    private final LinkedHashMap<String, Entry<M>> loaded = new LinkedHashMap<>(4, 0.75f, true);
+    private long loadedBytes = 0;
+    private long loadCount = 0;
+    private long hitCount = 0;
+    private long evictionCount = 0;
+
+    public ModelRegistry(Loader<M> loader, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive.");
+        }
+        this.loader = loader;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized void register(ModelSpec spec) {
+        if (specs.containsKey(spec.name)) {
+            throw new IllegalArgumentException("Model already registered: " + spec.name);
+        }
+        specs.put(spec.name, spec);
+    }
+
+    public synchronized List<ModelSpec> getModels() {
+        return new ArrayList<>(specs.values());
+    }
+
+    // 모델을 가져옴. 메모리에 없으면 로드함. 다 쓰면 release()를 호출해야 닫힐 수 있음
+    public synchronized M acquire(String name) throws IOException {
+        ModelSpec spec = specs.get(name);
+        if (spec == null) {
+            throw new IllegalArgumentException("Unknown model: " + name);
+        }
+        Entry<M> entry = loaded.get(name);
+        if (entry != null) {
+            hitCount++;
+        } else {
+            M model = loader.load(spec);
+            entry = new Entry<>(model, loader.getFootprint(model));
+            loaded.put(name, entry);
+            loadedBytes += entry.footprint;
+            loadCount++;
+        }
+        entry.users++;
+        evict();
+        return entry.model;
+    }
+
+    public synchronized void release(String name) {
+        // get()은 사용 순서를 바꾸므로 사용하지 않음
+        Entry<M> entry = null;
+        for (Map.Entry<String, Entry<M>> e : loaded.entrySet()) {
+            if (e.getKey().equals(name)) {
+                entry = e.getValue();
+                break;
+            }
+        }
+        if (entry == null || entry.users == 0) {
+            throw new IllegalStateException("Model is not acquired: " + name);
+        }
+        entry.users--;
+        evict();
+    }
+
+    public synchronized boolean isLoaded(String name) {
+        return loaded.containsKey(name);
+    }
+
+    // 모든 모델을 닫음. 사용 중인 모델도 닫으므로 종료할 때만 호출
+    public synchronized void close() {
+        for (Entry<M> entry : loaded.values()) {
+            loader.close(entry.model);
+        }
+        loaded.clear();
+        loadedBytes = 0;
+    }
+
+    // 메모리 사용량이 한도 이하가 될 때까지 사용하지 않는 모델을 오래된 순서로 닫음
+    private void evict() {
+        Iterator<Entry<M>> iterator = loaded.values().iterator();
+        while (loadedBytes > maxBytes && iterator.hasNext()) {
+            Entry<M> entry = iterator.next();
+            if (entry.users > 0) {
+                continue;
+            }
+            iterator.remove();
+            loadedBytes -= entry.footprint;
+            evictionCount++;
+            loader.close(entry.model);
+        }
+    }
+
+    public synchronized long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    public synchronized int getLoadedCount() {
+        return loaded.size();
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.realtimecamera;
+
+// 모델 하나의 정보. assets 폴더 안의 모델 파일과 레이블 파일 이름
+// 입력 크기는 모델을 로드하기 전에 카메라 미리보기 크기를 고를 때 사용하는 예상 값
+public class ModelSpec {
+
+    private static final int DEFAULT_INPUT_SIZE = 224;
+
+    final String name;          // ModelRegistry에서 모델을 찾을 때 사용하는 이름
+    final String modelFile;
+    final String labelFile;
+    final int inputWidth, inputHeight;
+
+    public ModelSpec(String name, String modelFile, String labelFile) {
+        this(name, modelFile, labelFile, DEFAULT_INPUT_SIZE, DEFAULT_INPUT_SIZE);
+    }
+
+    public ModelSpec(String name, String modelFile, String labelFile,
+                     int inputWidth, int inputHeight) {
+        if (name == null || modelFile == null || labelFile == null) {
+            throw new IllegalArgumentException("Model name and files must not be null.");
+        }
+        if (inputWidth <= 0 || inputHeight <= 0) {
+            throw new IllegalArgumentException("Input size must be positive.");
+        }
+        this.name = name;
+        this.modelFile = modelFile;
+        this.labelFile = labelFile;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getModelFile() {
+        return modelFile;
+    }
+
+    public String getLabelFile() {
+        return labelFile;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + modelFile + ")";
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.realtimecamera;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// 파이프라인 단계별 지연 시간과 초당 프레임 수를 모으는 클래스
+// 기록은 메모리 할당 없이 히스토그램에 누적하고,
+// 주기적으로 report()를 호출하면 그 구간의 p50/p90/p99와 fps를 문자열로 만든 뒤 초기화함
+public class PipelineMetrics {
+
+    public enum Metric {
+        CAMERA_TO_RESULT,   // 카메라 timestamp부터 추론 결과가 나올 때까지
+        CONVERT,            // YUV -> 모델 입력 변환 (YUV 경로는 전처리 포함)
+        PREPROCESS,         // Bitmap -> 모델 입력 전처리
+        INFERENCE,          // Interpreter 실행
+        DECODE              // 추론 결과 해석
+    }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Metric.values().length];
+    private final StringBuilder reportBuilder = new StringBuilder(512);
+
+    // 프레임 수는 파이프라인의 누적 카운터로 계산
+    private long windowStartNs;
+    private long lastDelivered;
+    private long lastDropped;
+    private float deliveredFps;
+    private float droppedFps;
+
+    public PipelineMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        windowStartNs = System.nanoTime();
+    }
+
+    public void record(Metric metric, long nanos) {
+        histograms[metric.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Metric metric) {
+        return histograms[metric.ordinal()];
+    }
+
+    public float getDeliveredFps() {
+        return deliveredFps;
+    }
+
+    public float getDroppedFps() {
+        return droppedFps;
+    }
+
+    public boolean isReportDue(long nowNs, long intervalNs) {
+        return nowNs - windowStartNs >= intervalNs;
+    }
+
+    // 지난 report() 이후 구간의 통계를 문자열로 만들고 구간을 초기화
+    // delivered, dropped는 파이프라인의 누적 값
+    public synchronized String report(long nowNs, long delivered, long dropped) {
+        float seconds = Math.max(1, nowNs - windowStartNs) / (float) TimeUnit.SECONDS.toNanos(1);
+        deliveredFps = (delivered - lastDelivered) / seconds;
+        droppedFps = (dropped - lastDropped) / seconds;
+        lastDelivered = delivered;
+        lastDropped = dropped;
+        windowStartNs = nowNs;
+
+        StringBuilder sb = reportBuilder;
+        sb.setLength(0);
+        sb.append("fps ");
+        appendFixed(sb, deliveredFps);
+        sb.append(" (dropped ");
+        appendFixed(sb, droppedFps);
+        sb.append(')');
+        for (Metric metric : Metric.values()) {
+            LatencyHistogram histogram = histograms[metric.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            sb.append('\n').append(metric.name().toLowerCase(Locale.ROOT))
+                    .append(" p50 ");
+            appendMillis(sb, histogram.getPercentileMicros(50));
+            sb.append(" p90 ");
+            appendMillis(sb, histogram.getPercentileMicros(90));
+            sb.append(" p99 ");
+            appendMillis(sb, histogram.getPercentileMicros(99));
+            sb.append(" ms");
+            histogram.reset();
+        }
+        return sb.toString();
+    }
+
+    // 소수점 한 자리까지. String.format보다 가벼움
+    private static void appendFixed(StringBuilder sb, float value) {
+        long tenths = Math.round(value * 10);
+        sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private static void appendMillis(StringBuilder sb, long micros) {
+        long tenths = (micros + 50) / 100;
+        sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
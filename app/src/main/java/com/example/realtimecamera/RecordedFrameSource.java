@@ -0,0 +1,312 @@
+package com.example.realtimecamera;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// FrameRecorder로 기록한 파일을 재생하는 FrameSource
+// 파일을 큰 단위(MAP_CHUNK_BYTES)로 memory-map 하고 그 안을 plane 버퍼로 사용하므로 재생할 때 복사하지 않음
+// realTime이면 기록할 때의 프레임 간격대로, 아니면 최대 속도로 재생 스레드에서 프레임을 넘김
+// 넘길 프레임을 아직 사용 중이면 realTime은 카메라처럼 건너뛰고, 최대 속도는 반납될 때까지 기다림
+// 넘기는 프레임의 timestamp는 clock 기준으로 바꿔서 카메라 프레임과 같이 지연 시간을 잴 수 있음
+public class RecordedFrameSource implements FrameSource {
+
+    // 일시 정지 후 이어서 기록한 파일은 프레임 사이가 길게 비므로 재생할 때 이 간격으로 줄임
+    private static final long MAX_FRAME_GAP_NS = TimeUnit.SECONDS.toNanos(1);
+    // 프레임이 하나뿐인 기록을 반복 재생할 때의 간격
+    private static final long DEFAULT_FRAME_GAP_NS = TimeUnit.MILLISECONDS.toNanos(33);
+    // 한 번에 매핑하는 파일 크기. 이보다 큰 프레임은 그 프레임 크기만큼 매핑
+    private static final long MAP_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    private final List<ReplayFrame> frames;
+    private final Object frameLock = new Object();   // ReplayFrame.inUse의 lock
+    private final boolean realTime;
+    private final LongSupplier clock;
+    private volatile boolean looping = false;
+
+    private Thread replayThread;
+    private volatile boolean running = false;
+
+    private volatile long deliveredCount = 0;
+    private volatile long skippedCount = 0;
+
+    // clock은 프레임 timestamp와 재생 간격에 사용할 시간 (ns)
+    public RecordedFrameSource(File file, boolean realTime, LongSupplier clock)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            frames = read(channel, frameLock);
+        }
+        if (frames.isEmpty()) {
+            throw new IOException("No frames in " + file);
+        }
+        this.realTime = realTime;
+        this.clock = clock;
+    }
+
+    // 기록의 끝까지 재생하면 처음부터 다시 재생할지 여부
+    public RecordedFrameSource setLooping(boolean looping) {
+        this.looping = looping;
+        return this;
+    }
+
+    @Override
+    public synchronized void start(Listener listener) {
+        if (replayThread != null) {
+            throw new IllegalStateException("Already started.");
+        }
+        running = true;
+        replayThread = new Thread(() -> replay(listener), "ReplayThread");
+        replayThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (replayThread == null) {
+            return;
+        }
+        running = false;
+        replayThread.interrupt();
+        try {
+            replayThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        replayThread = null;
+    }
+
+    private void replay(Listener listener) {
+        long startNs = clock.getAsLong();
+        long elapsedNs = 0;
+        long previousNs = frames.get(0).recordedNs;
+        long loopGapNs = getLoopGapNs();
+        boolean firstPass = true;
+        do {
+            for (int i = 0; i < frames.size(); i++) {
+                ReplayFrame frame = frames.get(i);
+                // 처음으로 돌아왔을 때는 평균 간격, 기록이 끊겼던 곳은 MAX_FRAME_GAP_NS로 줄임
+                long gapNs = i == 0 ? (firstPass ? 0 : loopGapNs)
+                        : Math.max(0, Math.min(frame.recordedNs - previousNs, MAX_FRAME_GAP_NS));
+                previousNs = frame.recordedNs;
+                elapsedNs += gapNs;
+                if (realTime) {
+                    waitUntil(startNs + elapsedNs);
+                }
+                if (!acquire(frame)) {
+                    if (!running) {
+                        return;
+                    }
+                    skippedCount++;
+                    continue;
+                }
+                frame.yuv.timestampNs = realTime ? startNs + elapsedNs : clock.getAsLong();
+                deliveredCount++;
+                listener.onFrame(frame);
+            }
+            firstPass = false;
+        } while (looping && running);
+        running = false;
+    }
+
+    // 이전 재생에서 넘긴 같은 프레임을 아직 사용 중이면 realTime은 건너뛰고
+    // (카메라에서 ImageReader의 이미지를 모두 잡고 있을 때와 같음), 최대 속도는 반납될 때까지 기다림
+    // 프레임을 넘길 수 있으면 true
+    private boolean acquire(ReplayFrame frame) {
+        synchronized (frameLock) {
+            if (!realTime) {
+                while (frame.inUse && running) {
+                    try {
+                        frameLock.wait();
+                    } catch (InterruptedException e) {
+                        // stop()이 깨운 경우
+                        return false;
+                    }
+                }
+            }
+            if (frame.inUse || !running) {
+                return false;
+            }
+            frame.inUse = true;
+            return true;
+        }
+    }
+
+    // 마지막 프레임에서 처음 프레임으로 돌아갈 때의 간격. 기록된 프레임 간격의 평균
+    private long getLoopGapNs() {
+        int count = frames.size();
+        if (count < 2) {
+            return DEFAULT_FRAME_GAP_NS;
+        }
+        long spanNs = frames.get(count - 1).recordedNs - frames.get(0).recordedNs;
+        return Math.max(0, Math.min(spanNs / (count - 1), MAX_FRAME_GAP_NS));
+    }
+
+    private void waitUntil(long targetNs) {
+        long remainingNs;
+        while (running && (remainingNs = targetNs - clock.getAsLong()) > 0) {
+            LockSupport.parkNanos(remainingNs);
+        }
+    }
+
+    // 파일의 프레임을 모두 읽음. 마지막 프레임을 다 쓰기 전에 끝난 파일이면 그 프레임은 버림
+    // plane 버퍼는 MAP_CHUNK_BYTES 단위로 매핑한 영역을 나눠서 사용 (프레임마다 매핑하지 않음)
+    private static List<ReplayFrame> read(FileChannel channel, Object frameLock)
+            throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(FrameRecorder.RECORD_HEADER_BYTES)
+                .order(FrameRecorder.ORDER);
+        header.limit(FrameRecorder.FILE_HEADER_BYTES);
+        readFully(channel, header, 0);
+        if (header.getInt() != FrameRecorder.MAGIC) {
+            throw new IOException("Not a frame recording.");
+        }
+        int version = header.getInt();
+        if (version != FrameRecorder.VERSION) {
+            throw new IOException("Unsupported recording version: " + version);
+        }
+
+        List<ReplayFrame> frames = new ArrayList<>();
+        MappedByteBuffer chunk = null;
+        long chunkPosition = 0;
+        long position = FrameRecorder.FILE_HEADER_BYTES;
+        while (size - position >= FrameRecorder.RECORD_HEADER_BYTES) {
+            header.clear();
+            readFully(channel, header, position);
+            long timestampNs = header.getLong();
+            int rotation = header.getInt();
+            int width = header.getInt();
+            int height = header.getInt();
+            int cropLeft = header.getInt();
+            int cropTop = header.getInt();
+            int cropWidth = header.getInt();
+            int cropHeight = header.getInt();
+            int yRowStride = header.getInt();
+            int yPixelStride = header.getInt();
+            int uvRowStride = header.getInt();
+            int uvPixelStride = header.getInt();
+            int yLength = header.getInt();
+            int uLength = header.getInt();
+            int vLength = header.getInt();
+            if (yLength < 0 || uLength < 0 || vLength < 0) {
+                throw new IOException("Invalid frame at " + position);
+            }
+            long dataBytes = (long) yLength + uLength + vLength;
+            if (dataBytes > Integer.MAX_VALUE) {
+                throw new IOException("Invalid frame at " + position);
+            }
+            long dataPosition = position + FrameRecorder.RECORD_HEADER_BYTES;
+            if (size - dataPosition < dataBytes) {
+                break;
+            }
+            if (chunk == null || dataPosition + dataBytes > chunkPosition + chunk.capacity()) {
+                chunkPosition = dataPosition;
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkPosition,
+                        Math.min(size - chunkPosition, Math.max(MAP_CHUNK_BYTES, dataBytes)));
+            }
+            int offset = (int) (dataPosition - chunkPosition);
+            YuvFrame yuv = new YuvFrame();
+            try {
+                yuv.set(slice(chunk, offset, yLength), yRowStride, yPixelStride,
+                        slice(chunk, offset + yLength, uLength),
+                        slice(chunk, offset + yLength + uLength, vLength),
+                        uvRowStride, uvPixelStride, width, height)
+                        .setCrop(cropLeft, cropTop, cropWidth, cropHeight);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid frame at " + position, e);
+            }
+            yuv.timestampNs = timestampNs;
+            frames.add(new ReplayFrame(yuv, rotation, timestampNs, frameLock));
+            position = dataPosition + dataBytes;
+        }
+        return frames;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of recording.");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static ByteBuffer slice(ByteBuffer data, int offset, int length) {
+        ByteBuffer plane = data.duplicate();
+        plane.position(offset);
+        plane.limit(offset + length);
+        return plane.slice();
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    // 기록된 i번 프레임. timestamp는 기록할 때의 값
+    public YuvFrame getRecordedFrame(int index) {
+        return frames.get(index).yuv;
+    }
+
+    public long getRecordedTimestampNs(int index) {
+        return frames.get(index).recordedNs;
+    }
+
+    public int getRotation(int index) {
+        return frames.get(index).rotation;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    // realTime 재생에서 넘길 차례에 아직 사용 중이어서 건너뛴 프레임 수
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    // 재생 중인지 여부. 반복하지 않으면 마지막 프레임을 넘긴 뒤 false
+    public boolean isRunning() {
+        return running;
+    }
+
+    // 파일에 기록된 프레임 하나. plane 버퍼는 매핑된 파일을 그대로 가리킴
+    private static class ReplayFrame implements SourceFrame {
+        final YuvFrame yuv;
+        final int rotation;
+        final long recordedNs;
+        private final Object lock;
+        boolean inUse = false;       // lock : lock
+
+        ReplayFrame(YuvFrame yuv, int rotation, long recordedNs, Object lock) {
+            this.yuv = yuv;
+            this.rotation = rotation;
+            this.recordedNs = recordedNs;
+            this.lock = lock;
+        }
+
+        @Override
+        public YuvFrame getYuv() {
+            return yuv;
+        }
+
+        @Override
+        public int getRotation() {
+            return rotation;
+        }
+
+        @Override
+        public void close() {
+            synchronized (lock) {
+                inUse = false;
+                lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.realtimecamera;
+
+// 화면에 출력할 결과 문자열을 프레임마다 새로 만들지 않고 같은 버퍼에 씀
+// String.format은 호출마다 Formatter, boxing된 Float, String을 만듦
+// TextView.setText(char[], int, int)는 배열을 복사하지 않고 감싸서 사용하므로 getChars()를 그대로 넘김
+// 한 스레드(UI 스레드)에서만 사용
+public class ResultFormatter {
+
+    private final StringBuilder builder = new StringBuilder(64);
+    private char[] chars = new char[64];
+
+    // "class : <레이블>, prob : 12.34%" 를 만들고 길이를 리턴. 내용은 getChars()
+    public int format(ClassificationResult result) {
+        builder.setLength(0);
+        builder.append("class : ").append(result.getLabel(0)).append(", prob : ");
+        appendPercent(builder, result.getScore(0));
+        builder.append('%');
+        int length = builder.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        builder.getChars(0, length, chars, 0);
+        return length;
+    }
+
+    // 마지막 format()의 결과. 배열은 다음 format()에서 덮어씀
+    public char[] getChars() {
+        return chars;
+    }
+
+    // fraction(0 ~ 1)을 소수점 둘째 자리까지의 백분율로 붙임. String.format("%.2f")와 같은 형식
+    static void appendPercent(StringBuilder builder, float fraction) {
+        long hundredths = Math.round(fraction * 10000.0);
+        if (hundredths < 0) {
+            builder.append('-');
+            hundredths = -hundredths;
+        }
+        builder.append(hundredths / 100).append('.');
+        long remainder = hundredths % 100;
+        if (remainder < 10) {
+            builder.append('0');
+        }
+        builder.append(remainder);
+    }
+}
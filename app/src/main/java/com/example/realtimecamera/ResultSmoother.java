@@ -0,0 +1,109 @@
+package com.example.realtimecamera;
+
+import java.util.Arrays;
+
+// 프레임마다 바뀌는 결과를 시간에 대해 지수 이동 평균(EMA)으로 부드럽게 만드는 클래스
+// 클래스별 점수를 float[]에 누적하는데, 모든 클래스를 매번 감쇠시키지 않고
+// 공통 배율(scale)만 줄인 뒤 이번 프레임의 top-K 항목만 더하므로 프레임당 O(K)
+// 감쇠 비율은 프레임 수가 아니라 timestamp 차이로 계산하므로 파이프라인에서 프레임이 버려져도
+// 같은 시간이 지나면 같은 만큼 잊어버림
+// 화면에 표시할 클래스는 다른 클래스의 평균 점수가 switchMargin 이상 높아질 때만 바꿈
+// 추론 스레드 하나에서만 사용
+public class ResultSmoother {
+
+    // 배율이 이 값보다 작아지면 누적 값에 곱해서 되돌림 (float 정밀도 유지)
+    private static final float MIN_SCALE = 1e-6f;
+
+    private final float[] scores;      // 실제 평균 점수 = scores[i] * scale
+    private final double timeConstantNs;
+    private final float switchMargin;
+
+    private float scale = 1f;
+    private long lastTimestampNs;
+    private boolean hasSample = false;
+
+    private int leaderIndex = -1;      // 평균 점수가 가장 높은 클래스
+    private String leaderLabel;
+    private int displayedIndex = -1;   // 화면에 표시 중인 클래스
+    private String displayedLabel;
+
+    // timeConstantNs : 이 시간이 지나면 이전 점수의 영향이 1/e로 줄어듦
+    // switchMargin : 표시 중인 클래스보다 평균 점수가 이만큼 높아야 표시를 바꿈
+    public ResultSmoother(int numClasses, long timeConstantNs, float switchMargin) {
+        if (numClasses < 1 || timeConstantNs <= 0 || switchMargin < 0) {
+            throw new IllegalArgumentException("Invalid smoothing parameters.");
+        }
+        this.scores = new float[numClasses];
+        this.timeConstantNs = timeConstantNs;
+        this.switchMargin = switchMargin;
+    }
+
+    // 한 프레임의 top-K 결과를 반영하고, 표시할 결과를 out에 저장
+    public void update(ClassificationResult result, long timestampNs,
+                       ClassificationResult out) {
+        float alpha;
+        if (!hasSample) {
+            alpha = 1f;
+            hasSample = true;
+        } else {
+            long elapsed = Math.max(0, timestampNs - lastTimestampNs);
+            alpha = (float) (1 - Math.exp(-elapsed / timeConstantNs));
+        }
+        lastTimestampNs = timestampNs;
+
+        // 모든 점수를 (1 - alpha)배로 줄이는 것은 배율만 바꾸면 됨
+        scale *= 1 - alpha;
+        if (scale < MIN_SCALE) {
+            rescale();
+        }
+        for (int i = 0; i < result.getCount(); i++) {
+            int index = result.getIndex(i);
+            if (index < 0 || index >= scores.length) {
+                continue;
+            }
+            scores[index] += alpha * result.getScore(i) / scale;
+            // 나머지 클래스는 모두 같은 비율로 줄었으므로 순서가 바뀔 수 있는 것은 방금 더한 클래스뿐
+            if (leaderIndex < 0 || scores[index] > scores[leaderIndex]) {
+                leaderIndex = index;
+            }
+            if (index == leaderIndex) {
+                leaderLabel = result.getLabel(i);
+            }
+        }
+        if (leaderIndex != displayedIndex && (displayedIndex < 0
+                || (scores[leaderIndex] - scores[displayedIndex]) * scale >= switchMargin)) {
+            displayedIndex = leaderIndex;
+            displayedLabel = leaderLabel;
+        }
+
+        out.count = 0;
+        if (displayedIndex >= 0) {
+            out.indices[0] = displayedIndex;
+            out.scores[0] = scores[displayedIndex] * scale;
+            out.labels[0] = displayedLabel;
+            out.count = 1;
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(scores, 0f);
+        scale = 1f;
+        hasSample = false;
+        leaderIndex = -1;
+        leaderLabel = null;
+        displayedIndex = -1;
+        displayedLabel = null;
+    }
+
+    // 평균 점수. 테스트와 디버깅용
+    float getScore(int index) {
+        return scores[index] * scale;
+    }
+
+    private void rescale() {
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] *= scale;
+        }
+        scale = 1f;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.realtimecamera;
+
+// 파이프라인에 들어가는 원본 프레임 하나. 카메라 Image 또는 녹화 파일의 프레임
+// 다 사용하면 close()로 반납해야 함 (카메라 프레임이면 Image를 닫음)
+public interface SourceFrame {
+    YuvFrame getYuv();          // plane 정보와 timestamp
+    int getRotation();          // 모델 입력에 적용할 회전 (도 단위)
+    void close();
+}
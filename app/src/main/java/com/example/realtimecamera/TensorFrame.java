@@ -0,0 +1,29 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+
+// 파이프라인에서 주고받는 프레임
+// 변환 스레드가 input을 채우고, 추론 스레드가 result를 채움
+public class TensorFrame {
+
+    final ByteBuffer input;
+    final ClassificationResult result;
+    final ClassificationResult smoothed = new ClassificationResult(1);  // 화면에 표시할 결과
+    long timestampNs;       // 카메라 이미지의 timestamp
+    boolean sceneUnchanged; // 이전 기준 프레임과 비슷해서 추론 결과를 재사용해도 되는지
+    long sceneId;           // 이 프레임이 비교한 기준 프레임 번호 (FrameChangeDetector)
+    long inferenceNs;       // 추론에 걸린 시간. 이전 결과를 재사용했으면 0
+
+    public TensorFrame(ByteBuffer input, int topK) {
+        this.input = input;
+        this.result = new ClassificationResult(topK);
+    }
+
+    public ClassificationResult getResult() {
+        return result;
+    }
+
+    public ClassificationResult getSmoothedResult() {
+        return smoothed;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+
+// 모델 출력에서 점수가 높은 K개의 클래스를 찾는 클래스
+// TensorLabel처럼 레이블 -> 점수 Map(박싱된 Float 1000여 개)을 만들지 않고
+// 출력 버퍼를 그대로 훑으면서 크기 K의 최소 힙(primitive 배열)에 상위 K개만 유지함.
+// 레이블은 최종 K개에 대해서만 인덱스로 찾음
+public final class TopKDecoder {
+
+    private TopKDecoder() {
+    }
+
+    // float 출력
+    public static void decode(FloatBuffer output, int numClasses, int k,
+                              List<String> labels, ClassificationResult result) {
+        int size = begin(k, result);
+        for (int i = 0; i < numClasses; i++) {
+            offer(result, size, i, output.get(i));
+        }
+        finish(result, labels);
+    }
+
+    public static void decode(float[] output, int numClasses, int k,
+                              List<String> labels, ClassificationResult result) {
+        int size = begin(k, result);
+        for (int i = 0; i < numClasses; i++) {
+            offer(result, size, i, output[i]);
+        }
+        finish(result, labels);
+    }
+
+    // uint8 quantized 출력. 비교는 정수 그대로 하고 상위 K개만 점수로 변환
+    // score = scale * (value - zeroPoint)
+    public static void decodeQuantized(ByteBuffer output, int numClasses, float scale,
+                                       int zeroPoint, int k, List<String> labels,
+                                       ClassificationResult result) {
+        decodeQuantized(output, numClasses, false, scale, zeroPoint, k, labels, result);
+    }
+
+    // signed가 true이면 int8 출력
+    public static void decodeQuantized(ByteBuffer output, int numClasses, boolean signed,
+                                       float scale, int zeroPoint, int k, List<String> labels,
+                                       ClassificationResult result) {
+        int size = begin(k, result);
+        if (signed) {
+            for (int i = 0; i < numClasses; i++) {
+                offer(result, size, i, output.get(i));
+            }
+        } else {
+            for (int i = 0; i < numClasses; i++) {
+                offer(result, size, i, output.get(i) & 0xff);
+            }
+        }
+        for (int i = 0; i < result.count; i++) {
+            result.scores[i] = scale * (result.scores[i] - zeroPoint);
+        }
+        finish(result, labels);
+    }
+
+    private static int begin(int k, ClassificationResult result) {
+        if (k < 1 || k > result.getCapacity()) {
+            throw new IllegalArgumentException(
+                    "k must be between 1 and " + result.getCapacity() + ": " + k);
+        }
+        result.count = 0;
+        return k;
+    }
+
+    // 힙이 다 차지 않았으면 추가, 다 찼으면 가장 작은 값(루트)보다 클 때만 교체
+    private static void offer(ClassificationResult heap, int size, int index, float score) {
+        final int[] indices = heap.indices;
+        final float[] scores = heap.scores;
+        if (heap.count < size) {
+            // sift up
+            int child = heap.count++;
+            while (child > 0) {
+                int parent = (child - 1) >> 1;
+                if (!less(score, index, scores[parent], indices[parent])) {
+                    break;
+                }
+                scores[child] = scores[parent];
+                indices[child] = indices[parent];
+                child = parent;
+            }
+            scores[child] = score;
+            indices[child] = index;
+        } else if (score > scores[0]) {
+            // sift down
+            int parent = 0;
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size
+                        && less(scores[child + 1], indices[child + 1], scores[child], indices[child])) {
+                    child++;
+                }
+                if (!less(scores[child], indices[child], score, index)) {
+                    break;
+                }
+                scores[parent] = scores[child];
+                indices[parent] = indices[child];
+                parent = child;
+            }
+            scores[parent] = score;
+            indices[parent] = index;
+        }
+    }
+
+    // 힙 순서: 점수가 작을수록, 점수가 같으면 인덱스가 클수록 먼저 버려짐
+    private static boolean less(float score, int index, float otherScore, int otherIndex) {
+        return score < otherScore || (score == otherScore && index > otherIndex);
+    }
+
+    // 점수 내림차순으로 정렬하고 레이블을 채움. K가 작으므로 삽입 정렬
+    private static void finish(ClassificationResult result, List<String> labels) {
+        final int[] indices = result.indices;
+        final float[] scores = result.scores;
+        for (int i = 1; i < result.count; i++) {
+            float score = scores[i];
+            int index = indices[i];
+            int j = i - 1;
+            while (j >= 0 && less(scores[j], indices[j], score, index)) {
+                scores[j + 1] = scores[j];
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            scores[j + 1] = score;
+            indices[j + 1] = index;
+        }
+        for (int i = 0; i < result.count; i++) {
+            result.labels[i] = labels != null && indices[i] < labels.size()
+                    ? labels.get(indices[i]) : null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.realtimecamera;
+
+import android.graphics.Rect;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+
+// YUV_420_888 프레임 한 장의 plane 정보(버퍼, stride, crop 영역)를 담는 클래스
+// Image에서 값을 채울 수도 있고, 테스트에서는 plane 버퍼를 직접 넣어서 사용할 수 있음
+// 객체 하나를 만들어 두고 프레임마다 set()으로 재사용
+public class YuvFrame {
+
+    ByteBuffer yBuffer;
+    ByteBuffer uBuffer;
+    ByteBuffer vBuffer;
+    int yRowStride, yPixelStride;
+    int uvRowStride, uvPixelStride;     // U, V plane의 stride는 항상 같음
+    int width, height;                  // 전체 이미지 크기
+    int cropLeft, cropTop, cropWidth, cropHeight;
+    long timestampNs;
+
+    // 카메라에서 받은 Image의 plane 정보로 채우는 메소드
+    public YuvFrame set(Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        set(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight());
+        Rect crop = image.getCropRect();
+        setCrop(crop.left, crop.top, crop.width(), crop.height());
+        timestampNs = image.getTimestamp();
+        return this;
+    }
+
+    // plane 버퍼를 직접 지정하는 메소드. crop 영역은 이미지 전체로 초기화
+    public YuvFrame set(ByteBuffer yBuffer, int yRowStride, int yPixelStride,
+                        ByteBuffer uBuffer, ByteBuffer vBuffer,
+                        int uvRowStride, int uvPixelStride,
+                        int width, int height) {
+        this.yBuffer = yBuffer;
+        this.yRowStride = yRowStride;
+        this.yPixelStride = yPixelStride;
+        this.uBuffer = uBuffer;
+        this.vBuffer = vBuffer;
+        this.uvRowStride = uvRowStride;
+        this.uvPixelStride = uvPixelStride;
+        this.width = width;
+        this.height = height;
+        return setCrop(0, 0, width, height);
+    }
+
+    public YuvFrame setCrop(int left, int top, int width, int height) {
+        if (left < 0 || top < 0 || left + width > this.width || top + height > this.height) {
+            throw new IllegalArgumentException("Crop rect is outside of the image.");
+        }
+        cropLeft = left;
+        cropTop = top;
+        cropWidth = width;
+        cropHeight = height;
+        return this;
+    }
+
+    public int getCropWidth() {
+        return cropWidth;
+    }
+
+    public int getCropHeight() {
+        return cropHeight;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+
+// YUV_420_888 프레임의 crop 영역을 NV21(Y 전체 + VU 교차) 또는 NV12(Y 전체 + UV 교차)로 재배치
+// 호출하는 쪽이 가진 ByteBuffer(direct 또는 heap)에 바로 쓰므로 프레임마다 할당하지 않음
+// 대부분의 기기는 U, V plane이 하나의 NV21(또는 NV12) 버퍼를 1 byte 차이로 공유하므로,
+// 이 경우에는 chroma 한 줄을 한 번의 bulk 복사로 옮김
+// 공유 여부는 입력 버퍼에 쓰지 않고 겹치는 byte를 읽어서 비교하고, 같은 설정의 프레임에서는 결과를 재사용
+// 그 밖의 stride(I420, 공유하지 않는 pixelStride 2 등)는 한 줄씩 배열로 읽어서 교차로 씀
+// 한 객체를 여러 스레드에서 동시에 사용하면 안 됨.
+public class YuvPlaneRepacker {
+
+    // 겹치는 byte를 비교할 위치 수 (가로, 세로)
+    private static final int SAMPLE_COLUMNS = 8;
+    private static final int SAMPLE_ROWS = 8;
+    // 값이 다양한 프레임에서 이만큼 연속으로 일치하면 공유하는 버퍼로 확정하고 더 확인하지 않음
+    private static final int CONFIRM_FRAMES = 3;
+
+    // compareOverlap() 결과
+    static final int OVERLAP_MISMATCH = -1;       // 공유하지 않음
+    static final int OVERLAP_UNKNOWN = 0;         // 비교한 값이 모두 같아서 판단할 수 없음
+    static final int OVERLAP_MATCH = 1;           // 공유함
+
+    private enum Layout { UNKNOWN, INTERLEAVED, SEPARATE }
+
+    private byte[] firstRow;      // 일반 경로에서 chroma 한 줄을 읽어 둘 버퍼
+    private byte[] secondRow;
+
+    // chroma 배치 확인 결과와 그 설정. 카메라(ImageReader) 설정이 바뀌면 다시 확인
+    private Layout layout = Layout.UNKNOWN;
+    private int confirmedFrames = 0;
+    private int layoutWidth = -1, layoutHeight, layoutRowStride;
+    private int layoutFirstLength, layoutSecondLength;
+    private boolean layoutVFirst;
+
+    private long bulkFrames = 0;
+    private long genericFrames = 0;
+
+    // crop 영역을 재배치했을 때의 크기. chroma는 가로 세로 모두 절반 (홀수면 내림)
+    public static int outputSize(int cropWidth, int cropHeight) {
+        return cropWidth * cropHeight + 2 * (cropWidth / 2) * (cropHeight / 2);
+    }
+
+    public void repackNv21(YuvFrame frame, ByteBuffer output) {
+        repack(frame, output, true);
+    }
+
+    public void repackNv12(YuvFrame frame, ByteBuffer output) {
+        repack(frame, output, false);
+    }
+
+    // output의 0번부터 쓰고, 끝나면 position은 0, limit은 쓴 크기
+    private void repack(YuvFrame frame, ByteBuffer output, boolean vFirst) {
+        int size = outputSize(frame.cropWidth, frame.cropHeight);
+        if (output.capacity() < size) {
+            throw new IllegalArgumentException("Output needs " + size + " bytes: "
+                    + output.capacity());
+        }
+        output.clear();
+        copyLuma(frame, output);
+
+        // 앞에 와야 하는 plane이 뒤의 plane과 1 byte 차이로 같은 버퍼를 공유하면 bulk 복사
+        ByteBuffer first = vFirst ? frame.vBuffer : frame.uBuffer;
+        ByteBuffer second = vFirst ? frame.uBuffer : frame.vBuffer;
+        if (isInterleaved(frame, first, second, vFirst)) {
+            copyInterleavedChroma(frame, first, second, output);
+            bulkFrames++;
+        } else {
+            copyChroma(frame, first, second, output);
+            genericFrames++;
+        }
+        output.flip();
+    }
+
+    // Y plane. pixelStride가 1이면 한 줄씩, crop이 줄 전체이면 plane 전체를 한 번에 복사
+    private static void copyLuma(YuvFrame frame, ByteBuffer output) {
+        ByteBuffer yBuffer = frame.yBuffer;
+        int width = frame.cropWidth;
+        int height = frame.cropHeight;
+        if (frame.yPixelStride != 1) {
+            for (int row = 0; row < height; row++) {
+                int position = (frame.cropTop + row) * frame.yRowStride
+                        + frame.cropLeft * frame.yPixelStride;
+                for (int col = 0; col < width; col++) {
+                    output.put(yBuffer.get(position + col * frame.yPixelStride));
+                }
+            }
+            return;
+        }
+        int limit = yBuffer.limit();
+        if (frame.yRowStride == width) {
+            int position = frame.cropTop * width;
+            bulkCopy(yBuffer, position, width * height, output);
+        } else {
+            for (int row = 0; row < height; row++) {
+                int position = (frame.cropTop + row) * frame.yRowStride + frame.cropLeft;
+                bulkCopy(yBuffer, position, width, output);
+            }
+        }
+        yBuffer.limit(limit);
+    }
+
+    // first plane 버퍼에는 교차된 chroma가 그대로 들어 있으므로 한 줄을 한 번에 복사
+    // 보통 first plane 버퍼는 마지막 줄의 마지막 second 값 전에서 끝나므로 그 값만 따로 씀
+    private static void copyInterleavedChroma(YuvFrame frame, ByteBuffer first, ByteBuffer second,
+                                              ByteBuffer output) {
+        int uvWidth = frame.cropWidth / 2;
+        int uvHeight = frame.cropHeight / 2;
+        if (uvWidth == 0) {
+            return;
+        }
+        int uvLeft = frame.cropLeft / 2;
+        int uvTop = frame.cropTop / 2;
+        int limit = first.limit();
+        for (int row = 0; row < uvHeight; row++) {
+            int position = (uvTop + row) * frame.uvRowStride + uvLeft * 2;
+            bulkCopy(first, position, uvWidth * 2 - 1, output);
+            output.put(second.get(position + uvWidth * 2 - 2));
+        }
+        first.limit(limit);
+    }
+
+    // 일반 경로. 두 plane의 한 줄을 배열로 읽어서 번갈아 씀
+    private void copyChroma(YuvFrame frame, ByteBuffer first, ByteBuffer second,
+                            ByteBuffer output) {
+        int uvWidth = frame.cropWidth / 2;
+        int uvHeight = frame.cropHeight / 2;
+        if (uvWidth == 0) {
+            return;
+        }
+        int pixelStride = frame.uvPixelStride;
+        int rowLength = (uvWidth - 1) * pixelStride + 1;
+        if (firstRow == null || firstRow.length < rowLength) {
+            firstRow = new byte[rowLength];
+            secondRow = new byte[rowLength];
+        }
+        int uvLeft = frame.cropLeft / 2;
+        int uvTop = frame.cropTop / 2;
+        for (int row = 0; row < uvHeight; row++) {
+            int position = (uvTop + row) * frame.uvRowStride + uvLeft * pixelStride;
+            first.position(position);
+            first.get(firstRow, 0, rowLength);
+            second.position(position);
+            second.get(secondRow, 0, rowLength);
+            for (int col = 0; col < rowLength; col += pixelStride) {
+                output.put(firstRow[col]);
+                output.put(secondRow[col]);
+            }
+        }
+    }
+
+    // buffer의 position부터 length byte를 output에 한 번에 복사 (limit은 호출한 쪽에서 되돌림)
+    private static void bulkCopy(ByteBuffer buffer, int position, int length, ByteBuffer output) {
+        buffer.limit(position + length).position(position);
+        output.put(buffer);
+    }
+
+    // second plane이 first plane보다 1 byte 뒤에서 시작하는 같은 메모리인지 확인
+    // (NV21이면 first = V, second = U)
+    // 한 번이라도 다르면 공유하지 않는 것으로 확정. 일치하면 그 프레임은 bulk 복사를 사용하고,
+    // CONFIRM_FRAMES번 일치하면 같은 설정의 프레임에서는 더 비교하지 않음
+    private boolean isInterleaved(YuvFrame frame, ByteBuffer first, ByteBuffer second,
+                                  boolean vFirst) {
+        if (frame.uvPixelStride != 2) {
+            return false;
+        }
+        if (frame.width != layoutWidth || frame.height != layoutHeight
+                || frame.uvRowStride != layoutRowStride || vFirst != layoutVFirst
+                || first.limit() != layoutFirstLength || second.limit() != layoutSecondLength) {
+            layoutWidth = frame.width;
+            layoutHeight = frame.height;
+            layoutRowStride = frame.uvRowStride;
+            layoutVFirst = vFirst;
+            layoutFirstLength = first.limit();
+            layoutSecondLength = second.limit();
+            layout = Layout.UNKNOWN;
+            confirmedFrames = 0;
+        }
+        if (layout != Layout.UNKNOWN) {
+            return layout == Layout.INTERLEAVED;
+        }
+        int result = compareOverlap(first, second, frame.uvRowStride,
+                (frame.width + 1) / 2, (frame.height + 1) / 2);
+        if (result == OVERLAP_MISMATCH) {
+            layout = Layout.SEPARATE;
+            return false;
+        }
+        if (result == OVERLAP_MATCH && ++confirmedFrames >= CONFIRM_FRAMES) {
+            layout = Layout.INTERLEAVED;
+        }
+        // 값이 모두 같은 프레임(검은 화면 등)은 판단할 수 없으므로 이번에는 일반 경로
+        return result == OVERLAP_MATCH;
+    }
+
+    // pixelStride 2인 두 plane에서 first[i + 1]과 second[i]를 여러 위치에서 비교 (읽기만 함)
+    // 같은 메모리를 공유하면 항상 같고, 따로 있는 버퍼는 보통 어딘가에서 다름 (확실한 판정은 아닌 추정)
+    // 색이 고른 chroma는 어느 쪽이든 같게 나오므로 값이 다양할 때만 MATCH로 보고,
+    // 우연히 일치하는 경우를 막기 위해 호출하는 쪽에서 CONFIRM_FRAMES 프레임 동안 확인한 뒤 확정
+    static int compareOverlap(ByteBuffer first, ByteBuffer second, int rowStride,
+                              int uvWidth, int uvHeight) {
+        if (uvWidth < 2 || uvHeight < 1) {
+            return OVERLAP_UNKNOWN;
+        }
+        boolean varied = false;
+        byte reference = second.get(0);
+        int rows = Math.min(SAMPLE_ROWS, uvHeight);
+        int columns = Math.min(SAMPLE_COLUMNS, uvWidth - 1);
+        for (int r = 0; r < rows; r++) {
+            int row = rows == 1 ? 0 : r * (uvHeight - 1) / (rows - 1);
+            for (int c = 0; c < columns; c++) {
+                // 마지막 열은 first 버퍼 밖이므로 그 앞 열까지만 비교
+                int col = columns == 1 ? 0 : c * (uvWidth - 2) / (columns - 1);
+                int position = row * rowStride + col * 2;
+                if (position + 1 >= first.limit() || position >= second.limit()) {
+                    return OVERLAP_MISMATCH;
+                }
+                byte value = second.get(position);
+                if (first.get(position + 1) != value) {
+                    return OVERLAP_MISMATCH;
+                }
+                varied |= value != reference;
+            }
+        }
+        return varied ? OVERLAP_MATCH : OVERLAP_UNKNOWN;
+    }
+
+    // bulk 경로로 처리한 프레임 수
+    public long getBulkFrameCount() {
+        return bulkFrames;
+    }
+
+    public long getGenericFrameCount() {
+        return genericFrames;
+    }
+}
@@ -1,113 +1,132 @@
 package com.example.realtimecamera;
 
-import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.ImageFormat;
-import android.graphics.Rect;
 import android.media.Image;
-import android.renderscript.Allocation;
-import android.renderscript.Element;
-import android.renderscript.RenderScript;
-import android.renderscript.ScriptIntrinsicYuvToRGB;
-import android.renderscript.Type;
 
 import java.nio.ByteBuffer;
 
-// 자신이 원하는 클래스 이름으로 변경
+// YUV_420_888 이미지를 ARGB로 변환하는 클래스
+// RenderScript는 deprecated 되었고 프레임마다 Allocation을 새로 만들어서 느림.
+// 정수(fixed-point) 연산으로 plane 데이터를 직접 변환하고,
+// 버퍼는 미리보기 크기가 바뀔 때만 새로 할당하므로 프레임마다 garbage가 생기지 않음.
+// 한 객체를 여러 스레드에서 동시에 사용하면 안 됨.
 public class YuvToRgbConverter {
 
-    private static void imageToByteArray(Image image, byte[] outputBuffer, int pixelCount) {
+    // 버퍼를 할당한 크기
+    private int width = 0;
+    private int height = 0;
+
+    private int[] argbBuffer;       // 변환 결과
+    private byte[] nv21Buffer;      // NV21 형태가 필요할 때 사용하는 버퍼
+    private ByteBuffer nv21View;    // nv21Buffer에 바로 쓰기 위한 ByteBuffer
+    private final YuvPlaneRepacker repacker = new YuvPlaneRepacker();
+    private byte[] yRow;            // plane의 한 줄을 복사해 둘 버퍼
+    private byte[] uRow;
+    private byte[] vRow;
+
+    private final YuvFrame frame = new YuvFrame();
+
+    // 카메라 이미지를 변환해서 Bitmap에 복사
+    public void yuvToRgb(Image image, Bitmap output) {
         assert image.getFormat() == ImageFormat.YUV_420_888;
-        Rect imageCrop = image.getCropRect();
-        Image.Plane[] imagePlanes = image.getPlanes();
-        for(int planeIndex = 0; planeIndex < imagePlanes.length; planeIndex++) {
-            Image.Plane plane = imagePlanes[planeIndex];
-            int outputStride;
-            int outputOffset;
-
-            switch (planeIndex) {
-                case 0: {
-                    outputStride = 1;
-                    outputOffset = 0;
-                    break;
-                }
-                case 1: {
-                    outputStride = 2;
-                    outputOffset = pixelCount + 1;
-                    break;
-                }
-                case 2: {
-                    outputStride = 2;
-                    outputOffset = pixelCount;
-                    break;
-                }
-                default: {
-                    return;
-                }
-            }
+        int[] argb = convert(frame.set(image));
+        output.setPixels(argb, 0, width, 0, 0, width, height);
+    }
 
-            ByteBuffer planeBuffer = plane.getBuffer();
-            int rowStride = plane.getRowStride();
-            int pixelStride = plane.getPixelStride();
-            Rect planeCrop;
-            if (planeIndex == 0) {
-                planeCrop = imageCrop;
-            } else {
-                planeCrop = new Rect(
-                        imageCrop.left / 2,
-                        imageCrop.top / 2,
-                        imageCrop.right / 2,
-                        imageCrop.bottom / 2
-                );
-            }
+    // crop 영역을 ARGB로 변환. 리턴되는 배열은 다음 호출 때 덮어씀
+    public int[] convert(YuvFrame frame) {
+        ensureCapacity(frame.cropWidth, frame.cropHeight, frame.yPixelStride,
+                frame.uvPixelStride);
+
+        final ByteBuffer yBuffer = frame.yBuffer;
+        final ByteBuffer uBuffer = frame.uBuffer;
+        final ByteBuffer vBuffer = frame.vBuffer;
+        final int yPixelStride = frame.yPixelStride;
+        final int uvPixelStride = frame.uvPixelStride;
+        final int yRowLength = (width - 1) * yPixelStride + 1;
+        // crop 시작 위치가 홀수일 수 있으므로 chroma 열 범위는 좌표로 계산
+        final int uvLeft = frame.cropLeft >> 1;
+        final int uvRowLength = (((frame.cropLeft + width - 1) >> 1) - uvLeft)
+                * uvPixelStride + 1;
+
+        int lastUvRow = -1;
+        int out = 0;
+        for (int row = 0; row < height; row++) {
+            int y = frame.cropTop + row;
+            yBuffer.position(y * frame.yRowStride + frame.cropLeft * yPixelStride);
+            yBuffer.get(yRow, 0, yRowLength);
 
-            int planeWidth = planeCrop.width();
-            int planeHeight = planeCrop.height();
-            byte[] rowBuffer = new byte[plane.getRowStride()];
-            int rowLength;
-            if (pixelStride == 1 && outputStride == 1) {
-                rowLength = planeWidth;
-            } else {
-                rowLength = (planeWidth - 1) * pixelStride + 1;
+            // chroma는 두 줄에 한 번만 읽음
+            int uvRow = y >> 1;
+            if (uvRow != lastUvRow) {
+                int uvPosition = uvRow * frame.uvRowStride + uvLeft * uvPixelStride;
+                uBuffer.position(uvPosition);
+                uBuffer.get(uRow, 0, uvRowLength);
+                vBuffer.position(uvPosition);
+                vBuffer.get(vRow, 0, uvRowLength);
+                lastUvRow = uvRow;
             }
 
-            for(int row = 0; row < planeHeight; row++){
-                planeBuffer.position(
-                        (row + planeCrop.top) * rowStride + planeCrop.left * pixelStride);
-                if (pixelStride == 1 && outputStride == 1) {
-                    planeBuffer.get(outputBuffer, outputOffset, rowLength);
-                    outputOffset += rowLength;
-                } else {
-                    planeBuffer.get(rowBuffer, 0, rowLength);
-                    for (int col = 0; col < planeWidth; col++) {
-                        outputBuffer[outputOffset] = rowBuffer[col * pixelStride];
-                        outputOffset += outputStride;
-                    }
-                }
+            for (int col = 0; col < width; col++) {
+                int uvIndex = (((frame.cropLeft + col) >> 1) - uvLeft) * uvPixelStride;
+                argbBuffer[out++] = yuvToArgb(
+                        yRow[col * yPixelStride] & 0xff,
+                        uRow[uvIndex] & 0xff,
+                        vRow[uvIndex] & 0xff);
             }
         }
+        return argbBuffer;
+    }
+
+    // crop 영역을 NV21(Y 전체 + VU 교차 배열)로 재배치. 리턴되는 배열은 다음 호출 때 덮어씀
+    public byte[] toNv21(YuvFrame frame) {
+        ensureCapacity(frame.cropWidth, frame.cropHeight, frame.yPixelStride,
+                frame.uvPixelStride);
+        repacker.repackNv21(frame, nv21View);
+        return nv21Buffer;
+    }
+
+    // 크기나 pixel stride가 바뀔 때만 버퍼를 새로 할당
+    private void ensureCapacity(int width, int height, int yPixelStride, int uvPixelStride) {
+        if (argbBuffer == null || this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            argbBuffer = new int[width * height];
+            nv21Buffer = new byte[width * height * 3 / 2];     // YUV 4:2:0은 픽셀당 12비트
+            nv21View = ByteBuffer.wrap(nv21Buffer);
+            yRow = null;
+            uRow = null;
+        }
+        int yRowLength = (width - 1) * yPixelStride + 1;
+        if (yRow == null || yRow.length < yRowLength) {
+            yRow = new byte[yRowLength];
+        }
+        // crop 시작 위치가 홀수이면 chroma가 한 칸 더 필요함
+        int uvRowLength = (width / 2 + 1) * uvPixelStride;
+        if (uRow == null || uRow.length < uvRowLength) {
+            uRow = new byte[uvRowLength];
+            vRow = new byte[uvRowLength];
+        }
     }
 
-    public static void yuvToRgb(Context context, Image image, Bitmap output) {
-        RenderScript rs = RenderScript.create(context);
-        ScriptIntrinsicYuvToRGB scriptYuvToRgb =
-                ScriptIntrinsicYuvToRGB.create(rs, Element.U8_4(rs));
-        int pixelCount = image.getCropRect().width() * image.getCropRect().height();
-        int pixelSizeBits = ImageFormat.getBitsPerPixel(ImageFormat.YUV_420_888);
-        byte[] yuvBuffer = new byte[pixelCount * pixelSizeBits / 8];
-        imageToByteArray(image, yuvBuffer, pixelCount);
-        Type elemType = new Type.Builder(rs, Element.YUV(rs))
-                .setYuvFormat(ImageFormat.NV21)
-                .create();
-        Allocation inputAllocation =
-                Allocation.createSized(rs, elemType.getElement(), yuvBuffer.length);
-        Allocation outputAllocation = Allocation.createFromBitmap(rs, output);
-        inputAllocation.copyFrom(yuvBuffer);
-        scriptYuvToRgb.setInput(inputAllocation);
-        scriptYuvToRgb.forEach(outputAllocation);
-        outputAllocation.copyTo(output);
+    // BT.601 (video range) 변환식을 10비트 fixed-point 정수 연산으로 계산
+    // R = 1.164(Y-16) + 1.596(V-128)
+    // G = 1.164(Y-16) - 0.813(V-128) - 0.391(U-128)
+    // B = 1.164(Y-16) + 2.018(U-128)
+    static int yuvToArgb(int y, int u, int v) {
+        int y1192 = 1192 * Math.max(y - 16, 0);
+        u -= 128;
+        v -= 128;
+        int r = y1192 + 1634 * v;
+        int g = y1192 - 833 * v - 400 * u;
+        int b = y1192 + 2066 * u;
+        r = r < 0 ? 0 : (r > 262143 ? 262143 : r);
+        g = g < 0 ? 0 : (g > 262143 ? 262143 : g);
+        b = b < 0 ? 0 : (b > 262143 ? 262143 : b);
+        return 0xff000000 | ((r << 6) & 0xff0000) | ((g >> 2) & 0xff00) | ((b >> 10) & 0xff);
     }
 }
 
 // 구글은 이 클래스를 코틀린으로 제공
-// 코틀린 코드는 안드로이드 스튜디오, Intelli J에서 서로 변환(호환) 가능.
\ No newline at end of file
+// 코틀린 코드는 안드로이드 스튜디오, Intelli J에서 서로 변환(호환) 가능.
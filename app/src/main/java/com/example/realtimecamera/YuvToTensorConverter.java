@@ -0,0 +1,92 @@
+package com.example.realtimecamera;
+
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+
+// YUV 프레임을 모델 입력 텐서로 바로 변환하는 클래스
+// 전체 크기 RGB Bitmap을 만들지 않고, 자르기/축소/회전 후 남는 픽셀만 YUV plane에서 읽어서
+// RGB로 변환한 다음 모델 입력 ByteBuffer에 바로 씀.
+// float 모델은 0~1로 정규화한 float, quantized(uint8, int8) 모델은 그 값을
+// 입력 텐서의 scale, zero point로 quantize 한 값을 씀 (setInputQuantization, InputQuantizer)
+// 한 객체를 여러 스레드에서 동시에 사용하면 안 됨.
+public class YuvToTensorConverter {
+
+    private static final float NORMALIZE_SCALE = 1.0f / 255.0f;   // NormalizeOp(0, 255)
+
+    private InputSampler sampler;
+    private final InputQuantizer quantizer = new InputQuantizer();
+
+    // quantized 모델 입력 텐서의 quantizationParams() 값. 지정하지 않으면 scale 1/255
+    public void setInputQuantization(float scale, int zeroPoint) {
+        quantizer.set(scale, zeroPoint);
+    }
+
+    // 프레임의 crop 영역을 dstWidth x dstHeight 텐서로 변환해서 output에 씀
+    public void convert(YuvFrame frame, int numRotation, int dstWidth, int dstHeight,
+                        DataType inputType, ByteBuffer output) {
+        checkInputType(inputType);
+        if (sampler == null || !sampler.matches(frame.cropWidth, frame.cropHeight,
+                dstWidth, dstHeight, numRotation)) {
+            sampler = new InputSampler(frame.cropWidth, frame.cropHeight,
+                    dstWidth, dstHeight, numRotation);
+        }
+        write(frame, inputType, output);
+    }
+
+    // 프레임의 region 영역만 잘라서 변환. 프레임 버퍼에서 필요한 픽셀만 바로 읽으므로 영역을 복사하지 않음
+    // 영역이 프레임마다 같으면(타일 등) sampler를 다시 만들지 않으므로 영역마다 converter를 하나씩 사용
+    public void convert(YuvFrame frame, CropRegion region, int numRotation,
+                        int dstWidth, int dstHeight, DataType inputType, ByteBuffer output) {
+        checkInputType(inputType);
+        region.checkInside(frame.cropWidth, frame.cropHeight);
+        if (sampler == null || !sampler.matches(region, dstWidth, dstHeight, numRotation)) {
+            sampler = new InputSampler(region.left, region.top, region.width, region.height,
+                    dstWidth, dstHeight, numRotation);
+        }
+        write(frame, inputType, output);
+    }
+
+    private void write(YuvFrame frame, DataType inputType, ByteBuffer output) {
+        final ByteBuffer yBuffer = frame.yBuffer;
+        final ByteBuffer uBuffer = frame.uBuffer;
+        final ByteBuffer vBuffer = frame.vBuffer;
+        final int[] sourceX = sampler.sourceX;
+        final int[] sourceY = sampler.sourceY;
+        final byte[] table = inputType == DataType.FLOAT32 ? null : quantizer.table(inputType);
+
+        output.rewind();
+        for (int i = 0; i < sourceX.length; i++) {
+            int x = frame.cropLeft + sourceX[i];
+            int y = frame.cropTop + sourceY[i];
+            int uvIndex = (y >> 1) * frame.uvRowStride + (x >> 1) * frame.uvPixelStride;
+            int argb = YuvToRgbConverter.yuvToArgb(
+                    yBuffer.get(y * frame.yRowStride + x * frame.yPixelStride) & 0xff,
+                    uBuffer.get(uvIndex) & 0xff,
+                    vBuffer.get(uvIndex) & 0xff);
+            putRgb(output, argb, table);
+        }
+        output.rewind();
+    }
+
+    // ARGB 픽셀 하나를 텐서에 RGB 순서로 씀
+    // table은 quantized 입력의 InputQuantizer 표. float 입력이면 null
+    static void putRgb(ByteBuffer output, int argb, byte[] table) {
+        if (table == null) {
+            output.putFloat(((argb >> 16) & 0xff) * NORMALIZE_SCALE);
+            output.putFloat(((argb >> 8) & 0xff) * NORMALIZE_SCALE);
+            output.putFloat((argb & 0xff) * NORMALIZE_SCALE);
+        } else {
+            output.put(table[(argb >> 16) & 0xff]);
+            output.put(table[(argb >> 8) & 0xff]);
+            output.put(table[argb & 0xff]);
+        }
+    }
+
+    static void checkInputType(DataType inputType) {
+        if (inputType != DataType.FLOAT32 && inputType != DataType.UINT8
+                && inputType != DataType.INT8) {
+            throw new IllegalArgumentException("Unsupported input type: " + inputType);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ArgbToTensorConverterTest {
+
+    @Test
+    public void convert_centerCropsAndRotates() {
+        // 4x2 이미지 -> 가운데 2x2 -> 2x2 그대로 -> 반시계 90도
+        int[] argb = {
+                0, 0x010203, 0x040506, 0,
+                0, 0x070809, 0x0a0b0c, 0};
+        ByteBuffer tensor = ByteBuffer.allocateDirect(2 * 2 * 3);
+        new ArgbToTensorConverter().convert(argb, 4, 2, 1, 2, 2, DataType.UINT8, tensor);
+        byte[] expected = {4, 5, 6, 10, 11, 12, 1, 2, 3, 7, 8, 9};
+        for (byte value : expected) {
+            assertEquals(value, tensor.get());
+        }
+    }
+
+    @Test
+    public void convert_rebuildsSamplerWhenRotationChanges() {
+        int[] argb = new int[30 * 20];
+        Random random = new Random(21);
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = random.nextInt();
+        }
+        ArgbToTensorConverter converter = new ArgbToTensorConverter();
+        ByteBuffer first = ByteBuffer.allocateDirect(10 * 10 * 3 * 4).order(ByteOrder.nativeOrder());
+        ByteBuffer second = ByteBuffer.allocateDirect(10 * 10 * 3 * 4).order(ByteOrder.nativeOrder());
+        converter.convert(argb, 30, 20, 0, 10, 10, DataType.FLOAT32, first);
+        converter.convert(argb, 30, 20, 2, 10, 10, DataType.FLOAT32, second);
+        // 180도 회전은 픽셀 순서를 뒤집은 것과 같음
+        for (int pixel = 0; pixel < 100; pixel++) {
+            for (int channel = 0; channel < 3; channel++) {
+                assertEquals(first.getFloat((pixel * 3 + channel) * 4),
+                        second.getFloat(((99 - pixel) * 3 + channel) * 4), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void convert_stretchesRegionToModelSize() {
+        // 4x2 이미지의 아래 줄(가로 4, 세로 1) 영역을 2x2로 늘림
+        int[] argb = {
+                0x010101, 0x020202, 0x030303, 0x040404,
+                0x050505, 0x060606, 0x070707, 0x080808};
+        ByteBuffer tensor = ByteBuffer.allocateDirect(2 * 2 * 3);
+        new ArgbToTensorConverter().convert(argb, 4, 2, new CropRegion(0, 1, 4, 1), 0, 2, 2,
+                DataType.UINT8, tensor);
+        byte[] expected = {6, 6, 6, 8, 8, 8, 6, 6, 6, 8, 8, 8};
+        for (byte value : expected) {
+            assertEquals(value, tensor.get());
+        }
+    }
+
+    @Test
+    public void convert_quantizesWithInputTensorParameters() {
+        // 회전, 축소 없이 2x2 그대로
+        int[] argb = {0x0033ff, 0x660000, 0xff6633, 0x000000};
+        ArgbToTensorConverter converter = new ArgbToTensorConverter();
+        ByteBuffer tensor = ByteBuffer.allocateDirect(2 * 2 * 3);
+
+        // uint8, scale 1/128, zero point 128 : round(p / 255 * 128) + 128, 255에서 자름
+        converter.setInputQuantization(1.0f / 128, 128);
+        converter.convert(argb, 2, 2, 0, 2, 2, DataType.UINT8, tensor);
+        int[] expectedUint8 = {128, 154, 255, 179, 128, 128, 255, 179, 154, 128, 128, 128};
+        for (int value : expectedUint8) {
+            assertEquals(value, tensor.get() & 0xff);
+        }
+
+        // int8, scale 0.01, zero point -100 : round(p / 2.55) - 100
+        converter.setInputQuantization(0.01f, -100);
+        converter.convert(argb, 2, 2, 0, 2, 2, DataType.INT8, tensor);
+        int[] expectedInt8 = {-100, -80, 0, -60, -100, -100, 0, -60, -80, -100, -100, -100};
+        for (int value : expectedInt8) {
+            assertEquals(value, tensor.get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setInputQuantization_rejectsMissingScale() {
+        // quantization 값이 없는 텐서는 scale이 0
+        new ArgbToTensorConverter().setInputQuantization(0f, 0);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchBuffersTest {
+
+    private static final int INPUT_BYTES = 4;
+    private static final int OUTPUT_BYTES = 8;    // float 2개
+
+    // 입력 한 장(4 byte)의 첫 byte를 점수 두 개로 바꾸는 가짜 모델
+    // 입력 버퍼 안의 장 수만큼 결과를 씀
+    private static class FakeModel implements BatchBuffers.Model {
+        final boolean resizable;
+        final List<Integer> runSizes = new ArrayList<>();    // run마다 입력 byte 수
+        final List<Integer> resizes = new ArrayList<>();
+
+        FakeModel(boolean resizable) {
+            this.resizable = resizable;
+        }
+
+        @Override
+        public boolean resize(int count) {
+            resizes.add(count);
+            return resizable;
+        }
+
+        @Override
+        public void run(ByteBuffer input, ByteBuffer output) {
+            runSizes.add(input.remaining());
+            int count = input.remaining() / INPUT_BYTES;
+            assertEquals(count * OUTPUT_BYTES, output.remaining());
+            for (int i = 0; i < count; i++) {
+                byte value = input.get(i * INPUT_BYTES);
+                output.putFloat(i * OUTPUT_BYTES, value);
+                output.putFloat(i * OUTPUT_BYTES + 4, -value);
+            }
+        }
+    }
+
+    private static void fill(BatchBuffers batch, int count) {
+        for (int i = 0; i < count; i++) {
+            ByteBuffer slot = batch.getInputSlot(i);
+            assertEquals(INPUT_BYTES, slot.capacity());
+            slot.clear();
+            slot.put((byte) (10 + i));
+        }
+    }
+
+    private static void assertResults(BatchBuffers batch, int count) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(10 + i, batch.getScoreSlot(i).get(0), 0f);
+            assertEquals(-(10 + i), batch.getScoreSlot(i).get(1), 0f);
+            assertEquals(10 + i, batch.getOutputSlot(i).getFloat(0), 0f);
+        }
+    }
+
+    @Test
+    public void run_resizableModel_runsOnceWithResultsInInputSlots() {
+        FakeModel model = new FakeModel(true);
+        BatchBuffers batch = new BatchBuffers(model, INPUT_BYTES, OUTPUT_BYTES);
+        batch.ensureCapacity(3);
+        fill(batch, 3);
+        batch.run(3);
+
+        assertEquals(1, model.runSizes.size());
+        assertEquals(3 * INPUT_BYTES, (int) model.runSizes.get(0));
+        assertResults(batch, 3);
+        assertTrue(batch.isResizable());
+        assertEquals(3L * (INPUT_BYTES + OUTPUT_BYTES), batch.getBytes());
+    }
+
+    @Test
+    public void run_fixedBatchModel_fallsBackToOneFrameAtATime() {
+        FakeModel model = new FakeModel(false);
+        BatchBuffers batch = new BatchBuffers(model, INPUT_BYTES, OUTPUT_BYTES);
+        batch.ensureCapacity(3);
+        fill(batch, 3);
+        batch.run(3);
+
+        assertFalse(batch.isResizable());
+        assertEquals(3, model.runSizes.size());
+        for (int size : model.runSizes) {
+            assertEquals(INPUT_BYTES, size);
+        }
+        assertResults(batch, 3);
+
+        // 한 번 실패하면 크기가 바뀌어도 다시 resize 하지 않음
+        batch.ensureCapacity(2);
+        fill(batch, 2);
+        batch.run(2);
+        assertEquals(1, model.resizes.size());
+        assertResults(batch, 2);
+    }
+
+    @Test
+    public void ensureCapacity_resizesOnlyWhenCountGrows() {
+        FakeModel model = new FakeModel(true);
+        BatchBuffers batch = new BatchBuffers(model, INPUT_BYTES, OUTPUT_BYTES);
+        batch.ensureCapacity(2);
+        ByteBuffer slot = batch.getInputSlot(0);
+        batch.ensureCapacity(2);
+        batch.ensureCapacity(1);
+        assertSame(slot, batch.getInputSlot(0));
+        assertEquals(2, batch.getCapacity());
+        batch.ensureCapacity(4);
+        assertEquals(4, batch.getCapacity());
+        assertEquals(Arrays.asList(2, 4), model.resizes);
+    }
+
+    @Test
+    public void run_smallerCount_reusesFullBatchWithoutResize() {
+        FakeModel model = new FakeModel(true);
+        BatchBuffers batch = new BatchBuffers(model, INPUT_BYTES, OUTPUT_BYTES);
+        batch.ensureCapacity(3);
+        fill(batch, 3);
+        batch.run(3);
+
+        // 장 수가 줄어도 batch 차원은 그대로 두고 앞쪽 자리의 결과만 사용
+        batch.ensureCapacity(1);
+        batch.getInputSlot(0).put(0, (byte) 10);
+        batch.run(1);
+        assertEquals(Arrays.asList(3), model.resizes);
+        assertEquals(Arrays.asList(3 * INPUT_BYTES, 3 * INPUT_BYTES), model.runSizes);
+        assertResults(batch, 1);
+        assertEquals(3L * (INPUT_BYTES + OUTPUT_BYTES), batch.getBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void run_rejectsCountAboveCapacity() {
+        BatchBuffers batch = new BatchBuffers(new FakeModel(true), INPUT_BYTES, OUTPUT_BYTES);
+        batch.ensureCapacity(2);
+        batch.run(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ensureCapacity_rejectsZero() {
+        new BatchBuffers(new FakeModel(true), INPUT_BYTES, OUTPUT_BYTES).ensureCapacity(0);
+    }
+}
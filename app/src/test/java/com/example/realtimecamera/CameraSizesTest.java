@@ -0,0 +1,48 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CameraSizesTest {
+
+    // 흔한 카메라 YUV 출력 크기
+    private static final int[] WIDTHS = {1920, 1440, 1280, 960, 640, 352, 320, 176};
+    private static final int[] HEIGHTS = {1080, 1080, 720, 720, 480, 288, 240, 144};
+
+    @Test
+    public void chooseAnalysisSize_smallestSameAspectCoveringModel() {
+        // 16:9 미리보기, 224 모델 -> 짧은 변이 224 이상인 16:9 중 가장 작은 1280x720
+        int index = CameraSizes.chooseAnalysisSize(WIDTHS, HEIGHTS, 224, 1920, 1080);
+        assertEquals(1280, WIDTHS[index]);
+        // 4:3 미리보기 -> 320x240
+        index = CameraSizes.chooseAnalysisSize(WIDTHS, HEIGHTS, 224, 1440, 1080);
+        assertEquals(320, WIDTHS[index]);
+    }
+
+    @Test
+    public void chooseAnalysisSize_ignoresAspectWhenNoMatch() {
+        // 2:1 미리보기와 같은 비율이 없으면 짧은 변이 224 이상인 것 중 가장 작은 320x240
+        int index = CameraSizes.chooseAnalysisSize(WIDTHS, HEIGHTS, 224, 2000, 1000);
+        assertEquals(320, WIDTHS[index]);
+    }
+
+    @Test
+    public void chooseAnalysisSize_largestWhenAllTooSmall() {
+        int index = CameraSizes.chooseAnalysisSize(
+                new int[]{176, 352, 320}, new int[]{144, 288, 240}, 300, 4, 3);
+        assertEquals(1, index);
+    }
+
+    @Test
+    public void sameAspect_allowsSmallDifference() {
+        assertTrue(CameraSizes.sameAspect(1920, 1080, 16, 9));
+        assertTrue(CameraSizes.sameAspect(1920, 1088, 16, 9));
+        assertFalse(CameraSizes.sameAspect(1440, 1080, 16, 9));
+    }
+
+    @Test
+    public void yuvFrameBytes_isOneAndHalfBytesPerPixel() {
+        assertEquals(1280 * 720 * 3 / 2, CameraSizes.yuvFrameBytes(1280, 720));
+    }
+}
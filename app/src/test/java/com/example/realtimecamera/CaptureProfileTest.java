@@ -0,0 +1,55 @@
+package com.example.realtimecamera;
+
+import android.hardware.camera2.CameraDevice;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CaptureProfileTest {
+
+    // 흔한 CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES
+    private static final int[] LOWERS = {15, 7, 15, 30, 24};
+    private static final int[] UPPERS = {15, 30, 30, 30, 24};
+
+    @Test
+    public void chooseFpsRange_lowestUpperCoveringTarget() {
+        assertEquals(0, CaptureProfile.chooseFpsRange(LOWERS, UPPERS, 15));
+        assertEquals(4, CaptureProfile.chooseFpsRange(LOWERS, UPPERS, 20));
+    }
+
+    @Test
+    public void chooseFpsRange_prefersWiderRangeWithSameUpper() {
+        // 최대값 30인 범위 중 최소값이 가장 낮은 7-30
+        assertEquals(1, CaptureProfile.chooseFpsRange(LOWERS, UPPERS, 30));
+    }
+
+    @Test
+    public void chooseFpsRange_fastestWhenTargetTooHigh() {
+        assertEquals(1, CaptureProfile.chooseFpsRange(LOWERS, UPPERS, 60));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chooseFpsRange_rejectsEmpty() {
+        CaptureProfile.chooseFpsRange(new int[0], new int[0], 15);
+    }
+
+    @Test
+    public void defaults_torchOffPreviewTemplate() {
+        CaptureProfile profile = new CaptureProfile();
+        assertFalse(profile.isTorch());
+        assertFalse(profile.isAnalysisOnly());
+        assertEquals(CameraDevice.TEMPLATE_PREVIEW, profile.getTemplate());
+        assertEquals(CaptureProfile.DEFAULT_TARGET_FPS, profile.getTargetFps());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTemplate_rejectsStillCapture() {
+        new CaptureProfile().setTemplate(CameraDevice.TEMPLATE_STILL_CAPTURE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTargetFps_rejectsZero() {
+        new CaptureProfile().setTargetFps(0);
+    }
+}
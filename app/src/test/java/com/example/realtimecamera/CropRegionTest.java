@@ -0,0 +1,39 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CropRegionTest {
+
+    @Test
+    public void tiles_coverFrameAndAddEdgeTile() {
+        // 가로는 0, 3, 6에서 끝에 딱 맞고, 세로는 0 다음에 끝에 맞춘 2를 추가
+        List<CropRegion> tiles = CropRegion.tiles(10, 6, 4, 3);
+        assertEquals(Arrays.asList(
+                new CropRegion(0, 0, 4, 4), new CropRegion(3, 0, 4, 4), new CropRegion(6, 0, 4, 4),
+                new CropRegion(0, 2, 4, 4), new CropRegion(3, 2, 4, 4), new CropRegion(6, 2, 4, 4)),
+                tiles);
+    }
+
+    @Test
+    public void tiles_singleTileForWholeFrame() {
+        assertEquals(Arrays.asList(new CropRegion(0, 0, 8, 8)), CropRegion.tiles(8, 8, 8, 4));
+    }
+
+    @Test
+    public void centeredAt_staysInsideFrame() {
+        assertEquals(new CropRegion(40, 30, 20, 20), CropRegion.centeredAt(50, 40, 20, 100, 80));
+        assertEquals(new CropRegion(0, 60, 20, 20), CropRegion.centeredAt(3, 79, 20, 100, 80));
+        // 프레임보다 크면 짧은 변 크기로 줄임
+        assertEquals(new CropRegion(10, 0, 80, 80), CropRegion.centeredAt(50, 40, 200, 100, 80));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkInside_rejectsRegionOutsideFrame() {
+        new CropRegion(90, 0, 20, 20).checkInside(100, 80);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FrameChangeDetectorTest {
+
+    private static final long MAX_STALE_NS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void thumbnail_averagesFlatPlane() {
+        YuvFrame frame = flatFrame(64, 48, 100);
+        int[] thumbnail = new int[FrameChangeDetector.THUMBNAIL_SIZE
+                * FrameChangeDetector.THUMBNAIL_SIZE];
+        FrameChangeDetector.thumbnail(frame, thumbnail);
+        for (int value : thumbnail) {
+            assertEquals(100, value);
+        }
+    }
+
+    @Test
+    public void thumbnail_readsOnlyCropArea() {
+        // 왼쪽 절반은 0, 오른쪽 절반은 200. 오른쪽 절반만 crop하면 전부 200
+        YuvFrame frame = flatFrame(64, 32, 0);
+        for (int row = 0; row < 32; row++) {
+            for (int col = 32; col < 64; col++) {
+                frame.yBuffer.put(row * frame.yRowStride + col, (byte) 200);
+            }
+        }
+        frame.setCrop(32, 0, 32, 32);
+        int[] thumbnail = new int[FrameChangeDetector.THUMBNAIL_SIZE
+                * FrameChangeDetector.THUMBNAIL_SIZE];
+        FrameChangeDetector.thumbnail(frame, thumbnail);
+        for (int value : thumbnail) {
+            assertEquals(200, value);
+        }
+    }
+
+    @Test
+    public void isUnchanged_reusesSimilarFrames() {
+        FrameChangeDetector detector = new FrameChangeDetector(4f, MAX_STALE_NS);
+        SyntheticYuv scene = new SyntheticYuv(64, 48, 8, 2, 1);
+
+        assertFalse(detector.isUnchanged(scene.toFrame(new YuvFrame()), 0));
+        long sceneId = detector.getSceneId();
+        // 같은 장면에 약간의 노이즈
+        YuvFrame noisy = scene.toFrame(new YuvFrame());
+        for (int i = 0; i < noisy.yBuffer.limit(); i += 7) {
+            int value = noisy.yBuffer.get(i) & 0xff;
+            noisy.yBuffer.put(i, (byte) Math.min(255, value + 2));
+        }
+        assertTrue(detector.isUnchanged(noisy, 10));
+        assertEquals(sceneId, detector.getSceneId());
+    }
+
+    @Test
+    public void isUnchanged_detectsSceneChange() {
+        FrameChangeDetector detector = new FrameChangeDetector(4f, MAX_STALE_NS);
+        assertFalse(detector.isUnchanged(new SyntheticYuv(64, 48, 0, 2, 1)
+                .toFrame(new YuvFrame()), 0));
+        long sceneId = detector.getSceneId();
+        assertFalse(detector.isUnchanged(new SyntheticYuv(64, 48, 0, 2, 2)
+                .toFrame(new YuvFrame()), 10));
+        assertEquals(sceneId + 1, detector.getSceneId());
+    }
+
+    @Test
+    public void isUnchanged_expiresAfterMaxStaleness() {
+        FrameChangeDetector detector = new FrameChangeDetector(4f, MAX_STALE_NS);
+        YuvFrame frame = flatFrame(32, 32, 50);
+        assertFalse(detector.isUnchanged(frame, 0));
+        assertTrue(detector.isUnchanged(frame, MAX_STALE_NS));
+        assertFalse(detector.isUnchanged(frame, MAX_STALE_NS + 1));
+        // 다시 추론한 프레임이 새 기준
+        assertTrue(detector.isUnchanged(frame, MAX_STALE_NS + 2));
+    }
+
+    @Test
+    public void counters_estimateSavedInference() {
+        FrameChangeDetector detector = new FrameChangeDetector(4f, MAX_STALE_NS);
+        detector.recordInference(TimeUnit.MILLISECONDS.toNanos(30));
+        detector.recordInference(TimeUnit.MILLISECONDS.toNanos(10));
+        detector.recordReuse();
+        detector.recordReuse();
+        detector.recordReuse();
+        assertEquals(3, detector.getReusedCount());
+        assertEquals(2, detector.getInferenceCount());
+        assertEquals(0.6f, detector.getHitRate(), 1e-6f);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(60), detector.getSavedInferenceNs());
+    }
+
+    private static YuvFrame flatFrame(int width, int height, int luma) {
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        for (int i = 0; i < width * height; i++) {
+            y.put(i, (byte) luma);
+        }
+        ByteBuffer uv = ByteBuffer.allocateDirect(width * height / 2);
+        return new YuvFrame().set(y, width, 1, uv, uv, width, 2, width, height);
+    }
+}
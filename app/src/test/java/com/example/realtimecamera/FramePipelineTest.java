@@ -0,0 +1,329 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class FramePipelineTest {
+
+    // 프레임은 변환된 원본 이름을 담는 배열로 대신함
+    private static class RecordingCallback implements FramePipeline.StageCallback<String, String[]> {
+        final List<String> released = new CopyOnWriteArrayList<>();
+        final List<String> inferred = new CopyOnWriteArrayList<>();
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        final Semaphore inferGate = new Semaphore(Integer.MAX_VALUE);
+
+        @Override
+        public void convert(String source, String[] frame) {
+            frame[0] = source;
+        }
+
+        @Override
+        public void release(String source) {
+            released.add(source);
+        }
+
+        @Override
+        public void infer(int worker, String[] frame) {
+            inferGate.acquireUninterruptibly();
+            inferred.add(frame[0]);
+        }
+
+        @Override
+        public void deliver(String[] frame) {
+            delivered.add(frame[0]);
+        }
+
+        @Override
+        public void publish() {
+        }
+    }
+
+    private static FramePool<String[]> frames(int count) {
+        List<String[]> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            frames.add(new String[1]);
+        }
+        return new FramePool<>(frames);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    // deliver() 다음에 결과 슬롯에 들어가므로 결과가 나올 때까지 기다림
+    private static String[] awaitResult(FramePipeline<String, String[]> pipeline)
+            throws InterruptedException {
+        String[][] result = new String[1][];
+        await(() -> (result[0] = pipeline.pollResult()) != null);
+        return result[0];
+    }
+
+    @Test
+    public void submit_releasesEverySourceExactlyOnce() throws Exception {
+        RecordingCallback callback = new RecordingCallback();
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(2));
+        pipeline.start();
+        List<String> submitted = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String source = "frame" + i;
+            submitted.add(source);
+            pipeline.submit(source);
+            String[] result = pipeline.pollResult();
+            if (result != null) {
+                pipeline.recycle(result);
+            }
+        }
+        pipeline.stop();
+
+        List<String> released = new ArrayList<>(callback.released);
+        Collections.sort(released);
+        Collections.sort(submitted);
+        assertEquals(submitted, released);
+        assertEquals(500, pipeline.getProcessedCount(FramePipeline.Stage.ACQUIRE));
+        // stop() 할 때 슬롯에 남아 있던 원본 하나는 변환도 버려지지도 않은 채 반납됨
+        long handled = pipeline.getDroppedCount(FramePipeline.Stage.ACQUIRE)
+                + pipeline.getDroppedCount(FramePipeline.Stage.CONVERT)
+                + pipeline.getProcessedCount(FramePipeline.Stage.CONVERT);
+        assertTrue(handled == 500 || handled == 499);
+    }
+
+    @Test
+    public void submitAfterStop_releasesImmediately() throws Exception {
+        RecordingCallback callback = new RecordingCallback();
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(2));
+        pipeline.start();
+        pipeline.stop();
+        // 카메라 스레드가 stop() 전에 읽은 파이프라인에 넘긴 원본
+        pipeline.submit("late");
+        assertEquals(Collections.singletonList("late"), callback.released);
+    }
+
+    @Test
+    public void infer_skipsFramesReplacedWhileBusy() throws Exception {
+        RecordingCallback callback = new RecordingCallback();
+        callback.inferGate.drainPermits();
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(4));
+        pipeline.start();
+
+        pipeline.submit("a");
+        await(() -> pipeline.getProcessedCount(FramePipeline.Stage.CONVERT) == 1);
+        await(() -> callback.inferGate.hasQueuedThreads());     // a 추론 중
+        pipeline.submit("b");
+        await(() -> pipeline.getProcessedCount(FramePipeline.Stage.CONVERT) == 2);
+        pipeline.submit("c");                                    // b를 밀어냄
+        await(() -> pipeline.getProcessedCount(FramePipeline.Stage.CONVERT) == 3);
+
+        callback.inferGate.release(Integer.MAX_VALUE / 2);
+        await(() -> pipeline.getProcessedCount(FramePipeline.Stage.INFER) == 2);
+        assertEquals(Arrays.asList("a", "c"), callback.inferred);
+        assertEquals(1, pipeline.getDroppedCount(FramePipeline.Stage.INFER));
+        assertEquals(1, pipeline.getDroppedCount(FramePipeline.Stage.PUBLISH));
+        String[] result = pipeline.pollResult();
+        assertEquals("c", result[0]);
+        assertNull(pipeline.pollResult());
+        pipeline.recycle(result);
+        pipeline.stop();
+        assertEquals(Arrays.asList("a", "b", "c"), callback.released);
+        assertEquals(4, pipeline.getFramePool().getAvailable());
+    }
+
+    @Test
+    public void parallelInference_deliversInSubmitOrder() throws Exception {
+        // 프레임마다 따로 추론을 끝낼 수 있도록 원본 이름별 gate 사용
+        Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+        List<Integer> workers = new CopyOnWriteArrayList<>();
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void infer(int worker, String[] frame) {
+                workers.add(worker);
+                try {
+                    gates.get(frame[0]).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inferred.add(frame[0]);
+            }
+        };
+        gates.put("a", new CountDownLatch(1));
+        gates.put("b", new CountDownLatch(1));
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(5), 2);
+        pipeline.start();
+
+        pipeline.submit("a");
+        await(() -> workers.size() == 1);
+        pipeline.submit("b");
+        await(() -> workers.size() == 2);                       // 두 프레임을 동시에 추론 중
+        assertNotEquals(workers.get(0), workers.get(1));
+
+        gates.get("b").countDown();                              // 뒤의 프레임이 먼저 끝남
+        await(() -> pipeline.getProcessedCount(FramePipeline.Stage.INFER) == 1);
+        assertTrue(callback.delivered.isEmpty());
+        assertNull(pipeline.pollResult());
+
+        gates.get("a").countDown();
+        await(() -> callback.delivered.size() == 2);
+        assertEquals(Arrays.asList("a", "b"), callback.delivered);
+        String[] result = pipeline.pollResult();
+        assertEquals("b", result[0]);
+        pipeline.recycle(result);
+        pipeline.stop();
+        assertEquals(5, pipeline.getFramePool().getAvailable());
+    }
+
+    @Test
+    public void inferFailure_releasesWorkerAndDeliversLaterFrames() throws Exception {
+        CountDownLatch badGate = new CountDownLatch(1);
+        List<Integer> workers = new CopyOnWriteArrayList<>();
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void infer(int worker, String[] frame) {
+                workers.add(worker);
+                if (frame[0].equals("bad")) {
+                    try {
+                        badGate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("inference failed");
+                }
+                inferred.add(frame[0]);
+            }
+        };
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(4), 2);
+        pipeline.start();
+
+        pipeline.submit("bad");
+        await(() -> workers.size() == 1);
+        pipeline.submit("b");
+        await(() -> callback.inferred.size() == 1);
+        // 앞의 프레임이 아직 추론 중이므로 기다림
+        assertTrue(callback.delivered.isEmpty());
+
+        badGate.countDown();
+        // 실패한 프레임은 버리고 기다리던 프레임은 내보냄
+        await(() -> callback.delivered.size() == 1);
+        assertEquals(Collections.singletonList("b"), callback.delivered);
+        assertEquals(1, pipeline.getFailedCount());
+
+        pipeline.recycle(awaitResult(pipeline));
+        pipeline.submit("c");
+        await(() -> callback.delivered.size() == 2);
+        assertEquals(Arrays.asList("b", "c"), callback.delivered);
+        pipeline.recycle(awaitResult(pipeline));
+        pipeline.stop();
+        assertEquals(4, pipeline.getFramePool().getAvailable());
+    }
+
+    @Test
+    public void inferFailure_keepsSingleWorkerRunning() throws Exception {
+        List<Integer> workers = new CopyOnWriteArrayList<>();
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void infer(int worker, String[] frame) {
+                workers.add(worker);
+                if (frame[0].equals("bad")) {
+                    throw new IllegalStateException("inference failed");
+                }
+                inferred.add(frame[0]);
+            }
+        };
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(3));
+        pipeline.start();
+
+        pipeline.submit("bad");
+        await(() -> pipeline.getFailedCount() == 1);
+        // 추론 스레드가 하나뿐이어도 다음 프레임을 계속 추론함
+        pipeline.submit("b");
+        await(() -> callback.delivered.size() == 1);
+        pipeline.recycle(awaitResult(pipeline));
+        pipeline.submit("c");
+        await(() -> callback.delivered.size() == 2);
+        pipeline.recycle(awaitResult(pipeline));
+        pipeline.stop();
+
+        assertEquals(Arrays.asList("b", "c"), callback.inferred);
+        assertEquals(Arrays.asList(0, 0, 0), workers);
+        assertEquals(3, pipeline.getFramePool().getAvailable());
+    }
+
+    @Test
+    public void convertFailure_recyclesFrameAndKeepsConverting() throws Exception {
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void convert(String source, String[] frame) {
+                if (source.equals("bad")) {
+                    throw new IllegalStateException("conversion failed");
+                }
+                super.convert(source, frame);
+            }
+        };
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(3));
+        pipeline.start();
+
+        pipeline.submit("bad");
+        await(() -> pipeline.getDroppedCount(FramePipeline.Stage.CONVERT) == 1);
+        // 변환에 실패해도 원본과 프레임은 반납되고 다음 원본을 계속 변환함
+        assertEquals(3, pipeline.getFramePool().getAvailable());
+        pipeline.submit("b");
+        await(() -> callback.delivered.size() == 1);
+        pipeline.recycle(awaitResult(pipeline));
+        pipeline.stop();
+
+        assertEquals(Arrays.asList("bad", "b"), callback.released);
+        assertEquals(Arrays.asList("b"), callback.inferred);
+        assertEquals(3, pipeline.getFramePool().getAvailable());
+    }
+
+    @Test
+    public void parallelInference_neverDeliversOutOfOrder() throws Exception {
+        Random random = new Random(7);
+        RecordingCallback callback = new RecordingCallback() {
+            @Override
+            public void infer(int worker, String[] frame) {
+                try {
+                    Thread.sleep(Integer.parseInt(frame[0]) % 3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        FramePipeline<String, String[]> pipeline = new FramePipeline<>(callback, frames(8), 4);
+        pipeline.start();
+        for (int i = 0; i < 300; i++) {
+            pipeline.submit(String.valueOf(i));
+            if (random.nextInt(4) == 0) {
+                Thread.sleep(1);
+            }
+            String[] result = pipeline.pollResult();
+            if (result != null) {
+                pipeline.recycle(result);
+            }
+        }
+        pipeline.stop();
+
+        assertFalse(callback.delivered.isEmpty());
+        for (int i = 1; i < callback.delivered.size(); i++) {
+            assertTrue(Integer.parseInt(callback.delivered.get(i - 1))
+                    < Integer.parseInt(callback.delivered.get(i)));
+        }
+        assertEquals(300, callback.released.size());
+        assertEquals(8, pipeline.getFramePool().getAvailable());
+    }
+}
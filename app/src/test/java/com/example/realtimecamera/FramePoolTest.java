@@ -0,0 +1,93 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class FramePoolTest {
+
+    @Test
+    public void acquire_countsReuseAndMiss() {
+        FramePool<String> pool = new FramePool<>(Arrays.asList("a", "b"));
+        String first = pool.acquire();
+        String second = pool.acquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertNull(pool.acquire());
+        assertEquals(2, pool.getReuseCount());
+        assertEquals(1, pool.getMissCount());
+
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(0, pool.getAvailable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void release_rejectsForeignFrame() {
+        FramePool<String> pool = new FramePool<>(Arrays.asList("a", "b"));
+        pool.acquire();
+        // 빈 자리가 있어도 pool이 만든 버퍼가 아니면 받지 않음
+        pool.release(new String("a"));
+    }
+
+    @Test
+    public void release_rejectsDoubleRelease() {
+        FramePool<String> pool = new FramePool<>(Arrays.asList("a", "b"));
+        String frame = pool.acquire();
+        pool.acquire();
+        pool.release(frame);
+        try {
+            pool.release(frame);
+            fail("Released the same frame twice.");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, pool.getAvailable());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsDuplicateFrames() {
+        String frame = "a";
+        new FramePool<>(Arrays.asList(frame, frame));
+    }
+
+    @Test
+    public void acquire_neverHandsOutFrameTwice() throws Exception {
+        List<Object> frames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            frames.add(new Object());
+        }
+        FramePool<Object> pool = new FramePool<>(frames);
+        Set<Object> owned = ConcurrentHashMap.newKeySet();
+        AtomicBoolean duplicated = new AtomicBoolean();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    Object frame = pool.acquire();
+                    if (frame == null) {
+                        continue;
+                    }
+                    if (!owned.add(frame)) {
+                        duplicated.set(true);
+                    }
+                    owned.remove(frame);
+                    pool.release(frame);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(duplicated.get());
+        assertEquals(3, pool.getAvailable());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// 가상의 시간으로 카메라(30fps)와 추론을 흉내 내서 스케줄러의 단계 변화를 확인
+public class InferenceSchedulerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FRAME_NS = 33 * MS;
+    private static final long TARGET_NS = 66 * MS;
+
+    private long now = 0;
+
+    private InferenceScheduler newScheduler() {
+        return new InferenceScheduler(TARGET_NS, 500 * MS, 2000 * MS, 4);
+    }
+
+    // durationNs 동안 카메라 프레임을 넣고, 받은 프레임마다 latencyNs만큼 걸린 추론을 기록
+    private int simulate(InferenceScheduler scheduler, long durationNs, long latencyNs) {
+        int admitted = 0;
+        long end = now + durationNs;
+        while (now < end) {
+            if (scheduler.shouldAdmit(now)) {
+                admitted++;
+                scheduler.recordInference(latencyNs, now + latencyNs);
+            }
+            now += FRAME_NS;
+        }
+        return admitted;
+    }
+
+    @Test
+    public void shouldAdmit_keepsTargetRateWhenFast() {
+        InferenceScheduler scheduler = newScheduler();
+        int admitted = simulate(scheduler, TimeUnit.SECONDS.toNanos(10), 20 * MS);
+        assertEquals(0, scheduler.getLevel());
+        // 66ms마다 하나씩 (카메라 30fps의 절반)
+        assertEquals(10000 / 66.0, admitted, 2);
+    }
+
+    @Test
+    public void recordInference_backsOffWhenSlowAndRampsUp() {
+        InferenceScheduler scheduler = newScheduler();
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(5), 150 * MS);
+        // 150ms 추론은 66ms * 3 = 198ms 주기에서야 따라갈 수 있음
+        assertEquals(2, scheduler.getLevel());
+        assertTrue(scheduler.getAdmitIntervalNs() > 150 * MS);
+
+        // 여유가 생겨도 바로 돌아오지 않고 유지 시간이 지나야 한 단계씩 내려옴
+        simulate(scheduler, 1000 * MS, 20 * MS);
+        assertEquals(2, scheduler.getLevel());
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(10), 20 * MS);
+        assertEquals(0, scheduler.getLevel());
+    }
+
+    @Test
+    public void recordInference_doesNotOscillateNearBoundary() {
+        InferenceScheduler scheduler = newScheduler();
+        // 66ms 주기에는 느리고(> 59.4ms), 132ms 주기에서 내려오려면 39.6ms보다 빨라야 함
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(20), 70 * MS);
+        assertEquals(1, scheduler.getLevel());
+    }
+
+    @Test
+    public void setThermalStatus_raisesLevelAndReducesThreads() {
+        InferenceScheduler scheduler = newScheduler();
+        assertEquals(4, scheduler.getNumThreads());
+
+        scheduler.setThermalStatus(InferenceScheduler.THERMAL_MODERATE, now);
+        assertEquals(1, scheduler.getLevel());
+        assertEquals(2, scheduler.getNumThreads());
+        // 추론이 빨라도 발열이 있는 동안은 내려가지 않음
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(10), 10 * MS);
+        assertEquals(1, scheduler.getLevel());
+
+        scheduler.setThermalStatus(InferenceScheduler.THERMAL_SEVERE, now);
+        assertEquals(InferenceScheduler.MAX_LEVEL, scheduler.getLevel());
+        assertEquals(1, scheduler.getNumThreads());
+
+        scheduler.setThermalStatus(InferenceScheduler.THERMAL_NONE, now);
+        assertEquals(4, scheduler.getNumThreads());
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(20), 10 * MS);
+        assertEquals(0, scheduler.getLevel());
+    }
+
+    @Test
+    public void shouldAdmit_countsThrottledFrames() {
+        InferenceScheduler scheduler = newScheduler();
+        simulate(scheduler, TimeUnit.SECONDS.toNanos(1), 10 * MS);
+        assertEquals(scheduler.getAdmittedCount(), scheduler.getThrottledCount(), 1);
+    }
+}
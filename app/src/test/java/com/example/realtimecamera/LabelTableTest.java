@@ -0,0 +1,66 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LabelTableTest {
+
+    private static LabelTable read(String text) throws IOException {
+        return LabelTable.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void read_splitsLines() throws IOException {
+        LabelTable labels = read("background\ntench\ngoldfish\n");
+        assertEquals(Arrays.asList("background", "tench", "goldfish"), labels);
+    }
+
+    @Test
+    public void read_handlesCrLfAndMissingFinalNewline() throws IOException {
+        LabelTable labels = read("a\r\nbb\r\n\r\nccc");
+        assertEquals(Arrays.asList("a", "bb", "", "ccc"), labels);
+    }
+
+    @Test
+    public void read_keepsUtf8Labels() throws IOException {
+        LabelTable labels = read("고양이\n강아지\n");
+        assertEquals("강아지", labels.get(1));
+    }
+
+    @Test
+    public void read_growsPastInitialBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1001; i++) {
+            text.append("label number ").append(i).append('\n');
+        }
+        LabelTable labels = read(text.toString());
+        assertEquals(1001, labels.size());
+        assertEquals("label number 0", labels.get(0));
+        assertEquals("label number 1000", labels.get(1000));
+    }
+
+    @Test
+    public void get_cachesStrings() throws IOException {
+        LabelTable labels = read("tench\ngoldfish\n");
+        assertSame(labels.get(1), labels.get(1));
+    }
+
+    @Test
+    public void appendTo_appendsWithoutString() throws IOException {
+        LabelTable labels = read("tench\ngoldfish\n");
+        StringBuilder builder = new StringBuilder("class : ");
+        labels.appendTo(builder, 1);
+        assertEquals("class : goldfish", builder.toString());
+    }
+
+    @Test
+    public void read_emptyFileHasNoLabels() throws IOException {
+        assertEquals(0, read("").size());
+    }
+}
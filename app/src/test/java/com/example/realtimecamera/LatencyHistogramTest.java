@@ -0,0 +1,58 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf_upperBoundCoversValue() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            // 상한 값의 오차는 12.5% 이내
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) <= micros * 1.125 + 1);
+        }
+    }
+
+    @Test
+    public void percentiles_uniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(50_500, histogram.getMeanMicros());
+        assertEquals(50_000, histogram.getPercentileMicros(50), 50_000 * 0.125);
+        assertEquals(90_000, histogram.getPercentileMicros(90), 90_000 * 0.125);
+        assertEquals(99_000, histogram.getPercentileMicros(99), 99_000 * 0.125);
+        assertEquals(100_000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    @Test
+    public void report_computesFpsAndResetsWindow() {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.record(PipelineMetrics.Metric.INFERENCE, TimeUnit.MILLISECONDS.toNanos(20));
+        long start = System.nanoTime();
+        metrics.report(start, 0, 0);
+        String report = metrics.report(start + TimeUnit.SECONDS.toNanos(2), 60, 10);
+        assertEquals(30f, metrics.getDeliveredFps(), 1e-3f);
+        assertEquals(5f, metrics.getDroppedFps(), 1e-3f);
+        assertTrue(report.startsWith("fps 30.0 (dropped 5.0)"));
+        assertEquals(0, metrics.get(PipelineMetrics.Metric.INFERENCE).getCount());
+    }
+}
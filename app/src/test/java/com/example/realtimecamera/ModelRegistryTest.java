@@ -0,0 +1,144 @@
+package com.example.realtimecamera;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ModelRegistryTest {
+
+    // 모델 대신 사용하는 객체. 크기는 이름에서 가져옴
+    private static class FakeModel {
+        final String name;
+        boolean closed = false;
+
+        FakeModel(String name) {
+            this.name = name;
+        }
+    }
+
+    private final List<String> loadedNames = new ArrayList<>();
+    private final List<String> closedNames = new ArrayList<>();
+    private ModelRegistry<FakeModel> registry;
+
+    @Before
+    public void setUp() {
+        registry = new ModelRegistry<>(new ModelRegistry.Loader<FakeModel>() {
+            @Override
+            public FakeModel load(ModelSpec spec) throws IOException {
+                if (spec.getModelFile().equals("missing.tflite")) {
+                    throw new IOException("not found");
+                }
+                loadedNames.add(spec.getName());
+                return new FakeModel(spec.getName());
+            }
+
+            @Override
+            public long getFootprint(FakeModel model) {
+                return model.name.startsWith("large") ? 60 : 30;
+            }
+
+            @Override
+            public void close(FakeModel model) {
+                model.closed = true;
+                closedNames.add(model.name);
+            }
+        }, 100);
+        registry.register(new ModelSpec("float", "float.tflite", "labels.txt"));
+        registry.register(new ModelSpec("quant", "quant.tflite", "labels.txt"));
+        registry.register(new ModelSpec("small", "small.tflite", "labels.txt"));
+        registry.register(new ModelSpec("large", "large.tflite", "labels.txt"));
+        registry.register(new ModelSpec("missing", "missing.tflite", "labels.txt"));
+    }
+
+    @Test
+    public void acquire_loadsLazilyAndReuses() throws IOException {
+        assertTrue(loadedNames.isEmpty());
+        FakeModel first = registry.acquire("float");
+        registry.release("float");
+        FakeModel second = registry.acquire("float");
+        assertSame(first, second);
+        assertEquals(1, registry.getLoadCount());
+        assertEquals(1, registry.getHitCount());
+        assertEquals(30, registry.getLoadedBytes());
+    }
+
+    @Test
+    public void acquire_evictsLeastRecentlyUsedOverBudget() throws IOException {
+        registry.acquire("float");
+        registry.release("float");
+        registry.acquire("quant");
+        registry.release("quant");
+        registry.acquire("small");
+        registry.release("small");
+        // float를 다시 사용해서 quant가 가장 오래된 모델이 됨
+        registry.acquire("float");
+        registry.release("float");
+
+        FakeModel large = registry.acquire("large");
+        // 30 * 3 + 60 = 150 > 100 이므로 quant, small 순서로 닫힘
+        assertEquals(2, closedNames.size());
+        assertEquals("quant", closedNames.get(0));
+        assertEquals("small", closedNames.get(1));
+        assertTrue(registry.isLoaded("float"));
+        assertFalse(large.closed);
+        assertEquals(90, registry.getLoadedBytes());
+        assertEquals(2, registry.getEvictionCount());
+    }
+
+    @Test
+    public void acquire_neverEvictsModelInUse() throws IOException {
+        FakeModel inUse = registry.acquire("float");
+        registry.acquire("quant");
+        registry.acquire("small");
+        registry.acquire("large");
+        // 모두 사용 중이면 한도를 넘어도 닫지 않음
+        assertFalse(inUse.closed);
+        assertEquals(150, registry.getLoadedBytes());
+
+        registry.release("quant");
+        assertEquals("quant", closedNames.get(0));
+        assertEquals(120, registry.getLoadedBytes());
+        registry.release("float");
+        assertTrue(inUse.closed);
+        assertEquals(90, registry.getLoadedBytes());
+    }
+
+    @Test
+    public void acquire_failedLoadLeavesRegistryUnchanged() {
+        try {
+            registry.acquire("missing");
+            fail();
+        } catch (IOException expected) {
+            // 로드 실패
+        }
+        assertEquals(0, registry.getLoadedCount());
+        assertEquals(0, registry.getLoadedBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acquire_rejectsUnknownModel() throws IOException {
+        registry.acquire("unknown");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_rejectsModelNotAcquired() throws IOException {
+        registry.acquire("float");
+        registry.release("float");
+        registry.release("float");
+    }
+
+    @Test
+    public void close_closesEveryModel() throws IOException {
+        registry.acquire("float");
+        registry.acquire("quant");
+        registry.release("quant");
+        registry.close();
+        assertEquals(2, closedNames.size());
+        assertEquals(0, registry.getLoadedCount());
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.realtimecamera;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+// 카메라 없이 데스크톱 리눅스에서 모델을 돌려보는 오프라인 추론 벤치마크
+// 저장해 둔 프레임을 Classifier와 같은 전처리(YuvToTensorConverter, ArgbToTensorConverter)와
+// 같은 결과 해석(TopKDecoder)으로 처리하고, 설정(스레드 수, XNNPACK)별로
+// 처리량, 지연 시간 p50/p90/p99, 첫 번째 설정과의 top-1 일치율을 출력함
+//
+// 지원하는 프레임 파일
+//   *.png, *.jpg            RGB 이미지
+//   *_<W>x<H>.nv21          NV21 raw 프레임 (Y 전체 + VU 교차)
+//
+// 실행: ./gradlew :app:offlineBenchmark -Pframes=<프레임 폴더> -Ptflite.jni=<libtensorflowlite_jni.so 폴더>
+// 리눅스용 libtensorflowlite_jni.so는 TensorFlow 소스에서
+// bazel build //tensorflow/lite/java:tensorflowlite_jni 로 빌드
+public class OfflineInferenceRunner {
+
+    private static final Pattern NV21_NAME = Pattern.compile(".*_(\\d+)x(\\d+)\\.nv21$");
+    private static final String FRAMES_HINT = "Pass a folder of *.png, *.jpg or *_<W>x<H>.nv21"
+            + " files with --frames <directory> (gradle: -Pframes=<directory>).";
+
+    // 프레임 한 장. YUV 프레임이면 yuv, 이미지면 argb를 사용
+    static class Frame {
+        final String name;
+        YuvFrame yuv;
+        int[] argb;
+        int width, height;
+
+        Frame(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Config {
+        final int numThreads;
+        final boolean useXnnpack;
+
+        Config(int numThreads, boolean useXnnpack) {
+            this.numThreads = numThreads;
+            this.useXnnpack = useXnnpack;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ENGLISH, "threads=%d xnnpack=%s", numThreads, useXnnpack);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String modelPath = "src/main/assets/mobilenet_imagenet_model.tflite";
+        String labelPath = "src/main/assets/labels.txt";
+        String framePath = null;
+        int[] threadCounts = {1, 2, 4};
+        boolean[] xnnpackModes = {false, true};
+        int warmup = 5;
+        int iterations = 3;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--model":
+                    modelPath = args[i + 1];
+                    break;
+                case "--labels":
+                    labelPath = args[i + 1];
+                    break;
+                case "--frames":
+                    framePath = args[i + 1];
+                    break;
+                case "--threads":
+                    threadCounts = Arrays.stream(args[i + 1].split(","))
+                            .mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--xnnpack":
+                    String[] modes = args[i + 1].split(",");
+                    xnnpackModes = new boolean[modes.length];
+                    for (int m = 0; m < modes.length; m++) {
+                        xnnpackModes[m] = Boolean.parseBoolean(modes[m]);
+                    }
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (framePath == null) {
+            throw new IllegalArgumentException(
+                    "--frames <directory> is required. " + FRAMES_HINT);
+        }
+        File frameDirectory = new File(framePath);
+        if (!frameDirectory.isDirectory()) {
+            // 기본 폴더(src/test/resources/frames)는 저장소에 들어 있지 않음
+            throw new IllegalArgumentException("Frame folder not found: "
+                    + frameDirectory.getAbsolutePath() + ". " + FRAMES_HINT);
+        }
+
+        MappedByteBuffer model = mapFile(new File(modelPath));
+        List<String> labels = Files.readAllLines(new File(labelPath).toPath(),
+                StandardCharsets.UTF_8);
+        List<Frame> frames = loadFrames(frameDirectory);
+        System.out.printf(Locale.ENGLISH, "model %s, %d labels, %d frames%n",
+                modelPath, labels.size(), frames.size());
+
+        List<Config> configs = new ArrayList<>();
+        for (boolean useXnnpack : xnnpackModes) {
+            for (int numThreads : threadCounts) {
+                configs.add(new Config(numThreads, useXnnpack));
+            }
+        }
+
+        Result baseline = null;
+        for (Config config : configs) {
+            Result result = run(model, labels, frames, config, warmup, iterations);
+            if (baseline == null) {
+                baseline = result;
+            }
+            System.out.printf(Locale.ENGLISH, "[%s] %.1f frames/s%n",
+                    config, result.getFramesPerSecond());
+            print("preprocess", result.preprocess);
+            print("inference", result.inference);
+            print("decode", result.decode);
+            print("total", result.total);
+            System.out.printf(Locale.ENGLISH, "  top-1 agreement with [%s] : %.1f%%%n",
+                    configs.get(0), 100.0 * result.agreement(baseline));
+        }
+    }
+
+    // 설정 하나로 모든 프레임을 처리한 결과
+    static class Result {
+        final int[] top1;               // 프레임별 top-1 인덱스
+        final LatencyHistogram preprocess = new LatencyHistogram();
+        final LatencyHistogram inference = new LatencyHistogram();
+        final LatencyHistogram decode = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+        long elapsedNs;
+
+        Result(int frameCount) {
+            top1 = new int[frameCount];
+        }
+
+        double getFramesPerSecond() {
+            return total.getCount() / (elapsedNs / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        // 다른 결과와 top-1이 같은 프레임의 비율
+        double agreement(Result other) {
+            int agree = 0;
+            for (int i = 0; i < top1.length; i++) {
+                if (top1[i] == other.top1[i]) {
+                    agree++;
+                }
+            }
+            return (double) agree / top1.length;
+        }
+    }
+
+    // 설정 하나로 전체 프레임을 처리
+    static Result run(MappedByteBuffer model, List<String> labels, List<Frame> frames,
+                      Config config, int warmup, int iterations) {
+        Classifier.Options options = new Classifier.Options()
+                .setNumThreads(config.numThreads)
+                .setUseXnnpack(config.useXnnpack);
+        Interpreter interpreter = new Interpreter(model, options.toInterpreterOptions());
+        try {
+            Tensor inputTensor = interpreter.getInputTensor(0);
+            Tensor outputTensor = interpreter.getOutputTensor(0);
+            int[] shape = inputTensor.shape();
+            int inputHeight = shape[1];
+            int inputWidth = shape[2];
+            DataType inputType = inputTensor.dataType();
+            DataType outputType = outputTensor.dataType();
+            ByteBuffer input = ByteBuffer.allocateDirect(inputTensor.numBytes())
+                    .order(ByteOrder.nativeOrder());
+            ByteBuffer output = ByteBuffer.allocateDirect(outputTensor.numBytes())
+                    .order(ByteOrder.nativeOrder());
+            FloatBuffer outputScores = output.asFloatBuffer();
+            int numClasses = outputTensor.numElements();
+
+            YuvToTensorConverter yuvConverter = new YuvToTensorConverter();
+            ArgbToTensorConverter argbConverter = new ArgbToTensorConverter();
+            if (inputType != DataType.FLOAT32) {
+                float inputScale = inputTensor.quantizationParams().getScale();
+                int inputZeroPoint = inputTensor.quantizationParams().getZeroPoint();
+                yuvConverter.setInputQuantization(inputScale, inputZeroPoint);
+                argbConverter.setInputQuantization(inputScale, inputZeroPoint);
+            }
+            ClassificationResult topK = new ClassificationResult(1);
+            Result result = new Result(frames.size());
+
+            for (int round = 0; round < warmup + iterations; round++) {
+                boolean measure = round >= warmup;
+                for (int i = 0; i < frames.size(); i++) {
+                    Frame frame = frames.get(i);
+                    long start = System.nanoTime();
+                    if (frame.yuv != null) {
+                        yuvConverter.convert(frame.yuv, 0, inputWidth, inputHeight,
+                                inputType, input);
+                    } else {
+                        argbConverter.convert(frame.argb, frame.width, frame.height, 0,
+                                inputWidth, inputHeight, inputType, input);
+                    }
+                    long preprocessed = System.nanoTime();
+                    output.rewind();
+                    interpreter.run(input, output);
+                    long inferred = System.nanoTime();
+                    if (outputType == DataType.FLOAT32) {
+                        TopKDecoder.decode(outputScores, numClasses, 1, labels, topK);
+                    } else {
+                        TopKDecoder.decodeQuantized(output, numClasses,
+                                outputType == DataType.INT8,
+                                outputTensor.quantizationParams().getScale(),
+                                outputTensor.quantizationParams().getZeroPoint(),
+                                1, labels, topK);
+                    }
+                    long decoded = System.nanoTime();
+                    if (measure) {
+                        result.preprocess.record(preprocessed - start);
+                        result.inference.record(inferred - preprocessed);
+                        result.decode.record(decoded - inferred);
+                        result.total.record(decoded - start);
+                        result.elapsedNs += decoded - start;
+                        result.top1[i] = topK.getIndex(0);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            interpreter.close();
+        }
+    }
+
+    static void print(String name, LatencyHistogram histogram) {
+        System.out.printf(Locale.ENGLISH,
+                "  %-10s mean %8.2f  p50 %8.2f  p90 %8.2f  p99 %8.2f ms%n", name,
+                histogram.getMeanMicros() / 1000.0,
+                histogram.getPercentileMicros(50) / 1000.0,
+                histogram.getPercentileMicros(90) / 1000.0,
+                histogram.getPercentileMicros(99) / 1000.0);
+    }
+
+    static List<Frame> loadFrames(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        Arrays.sort(files);     // 실행할 때마다 같은 순서
+        List<Frame> frames = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName().toLowerCase(Locale.ENGLISH);
+            Matcher nv21 = NV21_NAME.matcher(name);
+            if (nv21.matches()) {
+                frames.add(loadNv21(file, Integer.parseInt(nv21.group(1)),
+                        Integer.parseInt(nv21.group(2))));
+            } else if (name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+                BufferedImage image = ImageIO.read(file);
+                if (image == null) {
+                    continue;
+                }
+                Frame frame = new Frame(file.getName());
+                frame.width = image.getWidth();
+                frame.height = image.getHeight();
+                frame.argb = image.getRGB(0, 0, frame.width, frame.height, null, 0, frame.width);
+                frames.add(frame);
+            }
+        }
+        if (frames.isEmpty()) {
+            throw new IOException("No frames found in " + directory + ". " + FRAMES_HINT);
+        }
+        return frames;
+    }
+
+    // NV21 파일을 기기의 semi-planar YUV_420_888 (U/V pixel stride 2)처럼 감쌈
+    private static Frame loadNv21(File file, int width, int height) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        int pixelCount = width * height;
+        if (data.length < pixelCount * 3 / 2) {
+            throw new IOException("Truncated NV21 frame: " + file);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data).clear();
+        ByteBuffer y = slice(buffer, 0, pixelCount);
+        ByteBuffer v = slice(buffer, pixelCount, pixelCount / 2 - 1);
+        ByteBuffer u = slice(buffer, pixelCount + 1, pixelCount / 2 - 1);
+
+        Frame frame = new Frame(file.getName());
+        frame.width = width;
+        frame.height = height;
+        frame.yuv = new YuvFrame().set(y, width, 1, u, v, width, 2, width, height);
+        return frame;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer copy = buffer.duplicate();
+        copy.position(offset).limit(offset + length);
+        return copy.slice();
+    }
+
+    static MappedByteBuffer mapFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
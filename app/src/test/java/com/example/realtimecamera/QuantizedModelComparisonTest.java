@@ -0,0 +1,70 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+import org.tensorflow.lite.TensorFlowLite;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+// float 모델과 quantized 모델을 같은 샘플 이미지로 추론해서 top-1 일치율과 지연 시간을 비교
+// 데스크톱용 libtensorflowlite_jni.so와 quantized 모델이 있어야 하므로 없으면 건너뜀
+// ./gradlew :app:testDebugUnitTest --tests '*QuantizedModelComparisonTest' \
+//     -Ptflite.jni=<so 폴더> -Ptflite.quantModel=<quantized 모델> -Ptflite.frames=<이미지 폴더>
+public class QuantizedModelComparisonTest {
+
+    private static final String FLOAT_MODEL = System.getProperty("tflite.floatModel",
+            "src/main/assets/mobilenet_imagenet_model.tflite");
+    private static final String QUANT_MODEL = System.getProperty("tflite.quantModel");
+    private static final String LABELS = System.getProperty("tflite.labels",
+            "src/main/assets/labels.txt");
+    private static final String FRAMES = System.getProperty("tflite.frames");
+    // quantization으로 top-1이 조금 바뀌는 것은 허용
+    private static final double MIN_AGREEMENT =
+            Double.parseDouble(System.getProperty("tflite.minAgreement", "0.9"));
+
+    @Test
+    public void quantizedModel_agreesWithFloatModel() throws IOException {
+        assumeTrue("tflite.quantModel and tflite.frames are not set",
+                QUANT_MODEL != null && FRAMES != null);
+        assumeTrue(new File(FLOAT_MODEL).isFile() && new File(QUANT_MODEL).isFile());
+        try {
+            TensorFlowLite.init();
+        } catch (UnsatisfiedLinkError e) {
+            assumeNoException("TensorFlow Lite native library is not available", e);
+        }
+
+        List<String> labels = Files.readAllLines(new File(LABELS).toPath(),
+                StandardCharsets.UTF_8);
+        List<OfflineInferenceRunner.Frame> frames =
+                OfflineInferenceRunner.loadFrames(new File(FRAMES));
+        MappedByteBuffer floatModel = OfflineInferenceRunner.mapFile(new File(FLOAT_MODEL));
+        MappedByteBuffer quantModel = OfflineInferenceRunner.mapFile(new File(QUANT_MODEL));
+        OfflineInferenceRunner.Config config = new OfflineInferenceRunner.Config(4, true);
+
+        OfflineInferenceRunner.Result floatResult =
+                OfflineInferenceRunner.run(floatModel, labels, frames, config, 2, 3);
+        OfflineInferenceRunner.Result quantResult =
+                OfflineInferenceRunner.run(quantModel, labels, frames, config, 2, 3);
+
+        double agreement = quantResult.agreement(floatResult);
+        System.out.printf(Locale.ENGLISH, "%d frames, top-1 agreement %.1f%%%n",
+                frames.size(), agreement * 100);
+        OfflineInferenceRunner.print("float", floatResult.inference);
+        OfflineInferenceRunner.print("quantized", quantResult.inference);
+        System.out.printf(Locale.ENGLISH, "quantized speedup : %.2fx%n",
+                (double) floatResult.inference.getMeanMicros()
+                        / Math.max(1, quantResult.inference.getMeanMicros()));
+
+        // 지연 시간은 실행 환경에 따라 달라지므로 출력만 하고 일치율만 확인
+        assertTrue(String.format(Locale.ENGLISH, "top-1 agreement %.3f < %.3f",
+                agreement, MIN_AGREEMENT), agreement >= MIN_AGREEMENT);
+    }
+}
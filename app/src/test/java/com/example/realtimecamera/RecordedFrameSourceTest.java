@@ -0,0 +1,217 @@
+package com.example.realtimecamera;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RecordedFrameSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long FRAME_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(30);
+
+    // count개의 프레임을 FRAME_INTERVAL_NS 간격으로 기록
+    private File record(int count) throws IOException {
+        File file = folder.newFile();
+        try (FrameRecorder recorder = new FrameRecorder(file, 4)) {
+            for (int i = 0; i < count; i++) {
+                YuvFrame frame = new SyntheticYuv(32, 24, 0, 1, i).toFrame(new YuvFrame());
+                frame.timestampNs = i * FRAME_INTERVAL_NS;
+                assertTrue(recordBlocking(recorder, frame, 90));
+            }
+        }
+        return file;
+    }
+
+    // 기록 스레드가 버퍼를 비울 때까지 다시 시도
+    private static boolean recordBlocking(FrameRecorder recorder, YuvFrame frame, int rotation) {
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            if (recorder.record(frame, rotation)) {
+                return true;
+            }
+            Thread.yield();
+        }
+        return false;
+    }
+
+    private static void assertPlaneEquals(ByteBuffer expected, ByteBuffer actual) {
+        assertEquals(expected.limit(), actual.limit());
+        for (int i = 0; i < expected.limit(); i++) {
+            assertEquals("byte " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void recordAndReplay_preservesPlanesAndMetadata() throws IOException {
+        SyntheticYuv nv21 = new SyntheticYuv(40, 30, 8, SyntheticYuv.Chroma.NV21, 1);
+        SyntheticYuv planar = new SyntheticYuv(20, 16, 0, SyntheticYuv.Chroma.PLANAR, 2);
+        YuvFrame first = nv21.toFrame(new YuvFrame()).setCrop(4, 2, 32, 24);
+        first.timestampNs = 1_000_000L;
+        YuvFrame second = planar.toFrame(new YuvFrame());
+        second.timestampNs = 34_000_000L;
+
+        File file = folder.newFile();
+        FrameRecorder recorder = new FrameRecorder(file, 2);
+        assertTrue(recorder.record(first, 90));
+        assertTrue(recordBlocking(recorder, second, 270));
+        recorder.close();
+        assertEquals(2, recorder.getRecordedCount());
+
+        RecordedFrameSource source = new RecordedFrameSource(file, false, System::nanoTime);
+        assertEquals(2, source.getFrameCount());
+
+        YuvFrame replayed = source.getRecordedFrame(0);
+        assertEquals(40, replayed.width);
+        assertEquals(30, replayed.height);
+        assertEquals(4, replayed.cropLeft);
+        assertEquals(2, replayed.cropTop);
+        assertEquals(32, replayed.cropWidth);
+        assertEquals(24, replayed.cropHeight);
+        assertEquals(nv21.yRowStride, replayed.yRowStride);
+        assertEquals(nv21.uvRowStride, replayed.uvRowStride);
+        assertEquals(2, replayed.uvPixelStride);
+        assertEquals(1_000_000L, source.getRecordedTimestampNs(0));
+        assertEquals(90, source.getRotation(0));
+        assertPlaneEquals(nv21.yPlane, replayed.yBuffer);
+        assertPlaneEquals(nv21.uPlane, replayed.uBuffer);
+        assertPlaneEquals(nv21.vPlane, replayed.vBuffer);
+
+        replayed = source.getRecordedFrame(1);
+        assertEquals(20, replayed.cropWidth);
+        assertEquals(1, replayed.uvPixelStride);
+        assertEquals(34_000_000L, source.getRecordedTimestampNs(1));
+        assertEquals(270, source.getRotation(1));
+        assertPlaneEquals(planar.yPlane, replayed.yBuffer);
+        assertPlaneEquals(planar.uPlane, replayed.uBuffer);
+        assertPlaneEquals(planar.vPlane, replayed.vBuffer);
+    }
+
+    @Test
+    public void recorder_appendsToExistingFile() throws IOException {
+        File file = record(2);
+        try (FrameRecorder recorder = new FrameRecorder(file, 1)) {
+            YuvFrame frame = new SyntheticYuv(32, 24, 0, 1, 9).toFrame(new YuvFrame());
+            frame.timestampNs = 5 * FRAME_INTERVAL_NS;
+            assertTrue(recorder.record(frame, 0));
+        }
+        RecordedFrameSource source = new RecordedFrameSource(file, false, System::nanoTime);
+        assertEquals(3, source.getFrameCount());
+        assertEquals(5 * FRAME_INTERVAL_NS, source.getRecordedTimestampNs(2));
+    }
+
+    @Test
+    public void truncatedRecording_dropsPartialFrame() throws IOException {
+        File file = record(3);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+        RecordedFrameSource source = new RecordedFrameSource(file, false, System::nanoTime);
+        assertEquals(2, source.getFrameCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void notARecording_throws() throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeLong(0x1234567890L);
+        }
+        new RecordedFrameSource(file, false, System::nanoTime);
+    }
+
+    @Test
+    public void replay_maxSpeed_deliversAllFramesInOrder() throws Exception {
+        RecordedFrameSource source = new RecordedFrameSource(record(10), false, System::nanoTime);
+        List<YuvFrame> delivered = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(10);
+        source.start(frame -> {
+            delivered.add(frame.getYuv());
+            assertEquals(90, frame.getRotation());
+            frame.close();
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        source.stop();
+        assertEquals(10, delivered.size());
+        for (int i = 0; i < 10; i++) {
+            assertSame(source.getRecordedFrame(i), delivered.get(i));
+        }
+        assertEquals(10, source.getDeliveredCount());
+        assertFalse(source.isRunning());
+    }
+
+    @Test
+    public void replay_realTime_keepsRecordedSpacing() throws Exception {
+        RecordedFrameSource source = new RecordedFrameSource(record(5), true, System::nanoTime);
+        long[] timestamps = new long[5];
+        CountDownLatch done = new CountDownLatch(5);
+        long startNs = System.nanoTime();
+        source.start(frame -> {
+            timestamps[5 - (int) done.getCount()] = frame.getYuv().timestampNs;
+            frame.close();
+            done.countDown();
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long elapsedNs = System.nanoTime() - startNs;
+        source.stop();
+        // 프레임 timestamp는 재생을 시작한 시각 기준으로 기록할 때와 같은 간격
+        for (int i = 1; i < 5; i++) {
+            assertEquals(FRAME_INTERVAL_NS, timestamps[i] - timestamps[i - 1]);
+        }
+        assertTrue(elapsedNs >= 4 * FRAME_INTERVAL_NS);
+    }
+
+    @Test
+    public void replay_realTime_skipsFramesStillInUse() throws Exception {
+        RecordedFrameSource source = new RecordedFrameSource(record(3), true, System::nanoTime);
+        source.setLooping(true);
+        List<SourceFrame> held = new ArrayList<>();
+        source.start(held::add);     // 반납하지 않음
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (source.getSkippedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        source.stop();
+        assertTrue(source.getSkippedCount() > 0);
+        assertEquals(3, source.getDeliveredCount());
+        assertEquals(3, held.size());
+    }
+
+    @Test
+    public void replay_maxSpeed_waitsForFramesInUse() throws Exception {
+        RecordedFrameSource source = new RecordedFrameSource(record(3), false, System::nanoTime);
+        source.setLooping(true);
+        List<SourceFrame> held = new CopyOnWriteArrayList<>();
+        source.start(held::add);     // 반납하지 않음
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (held.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(50);
+        // 첫 프레임이 반납될 때까지 건너뛰지 않고 기다림
+        assertEquals(3, held.size());
+        assertEquals(0, source.getSkippedCount());
+
+        held.get(0).close();
+        while (held.size() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        source.stop();
+        assertEquals(4, held.size());
+        assertSame(held.get(0), held.get(3));
+        assertEquals(0, source.getSkippedCount());
+        assertFalse(source.isRunning());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ResultFormatterTest {
+
+    private static ClassificationResult result(String label, float score) {
+        ClassificationResult result = new ClassificationResult(1);
+        result.labels[0] = label;
+        result.scores[0] = score;
+        result.count = 1;
+        return result;
+    }
+
+    private static String format(ResultFormatter formatter, ClassificationResult result) {
+        int length = formatter.format(result);
+        return new String(formatter.getChars(), 0, length);
+    }
+
+    @Test
+    public void format_matchesStringFormat() {
+        ResultFormatter formatter = new ResultFormatter();
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            float score = random.nextFloat();
+            String expected = String.format(Locale.ENGLISH, "class : %s, prob : %.2f%%",
+                    "cat", score * 100);
+            assertEquals(expected, format(formatter, result("cat", score)));
+        }
+    }
+
+    @Test
+    public void format_edgeScores() {
+        ResultFormatter formatter = new ResultFormatter();
+        assertEquals("class : a, prob : 0.00%", format(formatter, result("a", 0f)));
+        assertEquals("class : a, prob : 100.00%", format(formatter, result("a", 1f)));
+        assertEquals("class : a, prob : 5.07%", format(formatter, result("a", 0.0507f)));
+    }
+
+    @Test
+    public void format_growsBufferForLongLabels() {
+        ResultFormatter formatter = new ResultFormatter();
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            label.append('x');
+        }
+        String text = format(formatter, result(label.toString(), 0.5f));
+        assertEquals("class : " + label + ", prob : 50.00%", text);
+        // 다음 결과는 같은 버퍼에 덮어씀
+        char[] chars = formatter.getChars();
+        assertEquals("class : b, prob : 25.00%", format(formatter, result("b", 0.25f)));
+        assertSame(chars, formatter.getChars());
+    }
+}
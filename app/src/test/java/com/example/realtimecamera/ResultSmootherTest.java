@@ -0,0 +1,101 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResultSmootherTest {
+
+    private static final long FRAME_NS = TimeUnit.MILLISECONDS.toNanos(33);
+    private static final long TIME_CONSTANT_NS = TimeUnit.MILLISECONDS.toNanos(300);
+
+    private final ClassificationResult out = new ClassificationResult(1);
+
+    // 점수가 높은 순서로 (index, score) 쌍을 넣은 결과
+    private static ClassificationResult result(Object... pairs) {
+        ClassificationResult result = new ClassificationResult(pairs.length / 2);
+        for (int i = 0; i < pairs.length / 2; i++) {
+            result.indices[i] = (Integer) pairs[2 * i];
+            result.scores[i] = (Float) pairs[2 * i + 1];
+            result.labels[i] = "class" + pairs[2 * i];
+        }
+        result.count = pairs.length / 2;
+        return result;
+    }
+
+    @Test
+    public void update_firstFrameIsShownAsIs() {
+        ResultSmoother smoother = new ResultSmoother(10, TIME_CONSTANT_NS, 0.1f);
+        smoother.update(result(3, 0.7f, 5, 0.2f), 0, out);
+        assertEquals(1, out.getCount());
+        assertEquals(3, out.getIndex(0));
+        assertEquals("class3", out.getLabel(0));
+        assertEquals(0.7f, out.getScore(0), 1e-6f);
+    }
+
+    @Test
+    public void update_ignoresSingleFrameFlicker() {
+        ResultSmoother smoother = new ResultSmoother(10, TIME_CONSTANT_NS, 0.1f);
+        long t = 0;
+        for (int i = 0; i < 30; i++, t += FRAME_NS) {
+            smoother.update(result(3, 0.6f, 5, 0.3f), t, out);
+        }
+        // 한 프레임만 다른 클래스가 1등
+        smoother.update(result(5, 0.7f, 3, 0.2f), t, out);
+        t += FRAME_NS;
+        assertEquals(3, out.getIndex(0));
+        smoother.update(result(3, 0.6f, 5, 0.3f), t, out);
+        assertEquals(3, out.getIndex(0));
+    }
+
+    @Test
+    public void update_switchesAfterSustainedChange() {
+        ResultSmoother smoother = new ResultSmoother(10, TIME_CONSTANT_NS, 0.1f);
+        long t = 0;
+        for (int i = 0; i < 30; i++, t += FRAME_NS) {
+            smoother.update(result(3, 0.8f), t, out);
+        }
+        int frames = 0;
+        while (out.getIndex(0) == 3 && frames < 100) {
+            smoother.update(result(7, 0.8f), t, out);
+            t += FRAME_NS;
+            frames++;
+        }
+        assertEquals(7, out.getIndex(0));
+        assertEquals("class7", out.getLabel(0));
+        // 평균 점수 차이가 0.1이 될 때까지 몇 프레임은 유지
+        assertTrue(frames > 3 && frames < 30);
+    }
+
+    @Test
+    public void update_decaysByTimeNotFrameCount() {
+        // 같은 시간 동안 프레임 수가 달라도(버려진 프레임) 평균 점수는 같아야 함
+        ResultSmoother everyFrame = new ResultSmoother(10, TIME_CONSTANT_NS, 0.1f);
+        ResultSmoother withDrops = new ResultSmoother(10, TIME_CONSTANT_NS, 0.1f);
+        everyFrame.update(result(1, 1f), 0, out);
+        withDrops.update(result(1, 1f), 0, out);
+        for (int i = 1; i <= 12; i++) {
+            everyFrame.update(result(2, 0f), i * FRAME_NS, out);
+        }
+        withDrops.update(result(2, 0f), 12 * FRAME_NS, out);
+        float expected = (float) Math.exp(-12.0 * FRAME_NS / TIME_CONSTANT_NS);
+        assertEquals(expected, everyFrame.getScore(1), 1e-4f);
+        assertEquals(expected, withDrops.getScore(1), 1e-4f);
+    }
+
+    @Test
+    public void update_staysAccurateOverLongRuns() {
+        // 배율을 되돌리는 과정을 여러 번 거쳐도 수렴 값이 맞아야 함
+        ResultSmoother smoother = new ResultSmoother(1000, TIME_CONSTANT_NS, 0.1f);
+        long t = 0;
+        for (int i = 0; i < 10000; i++, t += FRAME_NS) {
+            smoother.update(result(i % 2 == 0 ? 10 : 20, 0.5f, 30, 0.25f), t, out);
+        }
+        assertEquals(0.25f, smoother.getScore(30), 1e-3f);
+        assertEquals(0.25f, smoother.getScore(10), 0.05f);
+        assertEquals(0.25f, smoother.getScore(20), 0.05f);
+        assertEquals(0f, smoother.getScore(40), 0f);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.realtimecamera;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// 테스트용 YUV_420_888 plane 생성기
+// uvPixelStride가 1이면 I420처럼 U, V가 따로 있고,
+// 2이면 실제 기기처럼 U, V plane이 하나의 NV21 버퍼를 공유함
+// 다른 chroma 배치는 Chroma로 지정
+class SyntheticYuv {
+
+    enum Chroma {
+        PLANAR,     // I420. pixelStride 1
+        NV21,       // V, U 순서로 교차된 버퍼 하나를 공유. pixelStride 2
+        NV12,       // U, V 순서로 교차된 버퍼 하나를 공유. pixelStride 2
+        STRIDED     // pixelStride 2 이지만 U, V가 따로 있는 버퍼
+    }
+
+    final int width, height;
+    final int yRowStride, uvRowStride, uvPixelStride;
+    final byte[] y, u, v;       // 기준값 (stride 없이 저장)
+    final ByteBuffer yPlane, uPlane, vPlane;
+
+    SyntheticYuv(int width, int height, int rowPadding, int uvPixelStride, long seed) {
+        this(width, height, rowPadding, uvPixelStride == 2 ? Chroma.NV21 : Chroma.PLANAR, seed);
+    }
+
+    SyntheticYuv(int width, int height, int rowPadding, Chroma chroma, long seed) {
+        this.width = width;
+        this.height = height;
+        this.uvPixelStride = chroma == Chroma.PLANAR ? 1 : 2;
+        int uvWidth = (width + 1) / 2;
+        int uvHeight = (height + 1) / 2;
+        yRowStride = width + rowPadding;
+        uvRowStride = uvWidth * uvPixelStride + rowPadding;
+
+        Random random = new Random(seed);
+        y = new byte[width * height];
+        u = new byte[uvWidth * uvHeight];
+        v = new byte[uvWidth * uvHeight];
+        random.nextBytes(y);
+        random.nextBytes(u);
+        random.nextBytes(v);
+
+        // 마지막 줄은 padding 없이 끝나는 경우가 많으므로 그대로 재현
+        yPlane = ByteBuffer.allocateDirect((height - 1) * yRowStride + width);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                yPlane.put(row * yRowStride + col, y[row * width + col]);
+            }
+        }
+        int uvLength = (uvHeight - 1) * uvRowStride + (uvWidth - 1) * uvPixelStride + 1;
+        if (chroma == Chroma.NV21 || chroma == Chroma.NV12) {
+            // 앞에 오는 plane이 버퍼 시작, 뒤의 plane은 1 byte 뒤에서 시작
+            byte[] first = chroma == Chroma.NV21 ? v : u;
+            byte[] second = chroma == Chroma.NV21 ? u : v;
+            ByteBuffer shared = ByteBuffer.allocateDirect(uvLength + 1);
+            for (int row = 0; row < uvHeight; row++) {
+                for (int col = 0; col < uvWidth; col++) {
+                    shared.put(row * uvRowStride + col * 2, first[row * uvWidth + col]);
+                    shared.put(row * uvRowStride + col * 2 + 1, second[row * uvWidth + col]);
+                }
+            }
+            shared.limit(uvLength);
+            ByteBuffer firstPlane = shared.slice();
+            shared.limit(uvLength + 1).position(1);
+            ByteBuffer secondPlane = shared.slice();
+            vPlane = chroma == Chroma.NV21 ? firstPlane : secondPlane;
+            uPlane = chroma == Chroma.NV21 ? secondPlane : firstPlane;
+        } else {
+            uPlane = ByteBuffer.allocateDirect(uvLength);
+            vPlane = ByteBuffer.allocateDirect(uvLength);
+            for (int row = 0; row < uvHeight; row++) {
+                for (int col = 0; col < uvWidth; col++) {
+                    uPlane.put(row * uvRowStride + col * uvPixelStride, u[row * uvWidth + col]);
+                    vPlane.put(row * uvRowStride + col * uvPixelStride, v[row * uvWidth + col]);
+                }
+            }
+        }
+    }
+
+    YuvFrame toFrame(YuvFrame frame) {
+        return frame.set(yPlane, yRowStride, 1, uPlane, vPlane, uvRowStride, uvPixelStride,
+                width, height);
+    }
+
+    int y(int x, int row) {
+        return y[row * width + x] & 0xff;
+    }
+
+    int u(int x, int row) {
+        return u[(row / 2) * ((width + 1) / 2) + x / 2] & 0xff;
+    }
+
+    int v(int x, int row) {
+        return v[(row / 2) * ((width + 1) / 2) + x / 2] & 0xff;
+    }
+
+    // 부동소수점으로 계산한 BT.601 기준값
+    static int[] referenceRgb(int y, int u, int v) {
+        float c = 1.164f * Math.max(y - 16, 0);
+        return new int[]{
+                clamp(Math.round(c + 1.596f * (v - 128))),
+                clamp(Math.round(c - 0.813f * (v - 128) - 0.391f * (u - 128))),
+                clamp(Math.round(c + 2.018f * (u - 128)))};
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
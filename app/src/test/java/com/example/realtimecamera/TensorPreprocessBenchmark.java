@@ -0,0 +1,82 @@
+package com.example.realtimecamera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+// 가운데 자르기 + 축소 + 회전 + 정규화로 모델 입력 ByteBuffer를 만드는 전처리 벤치마크
+// YUV에서 바로 변환하는 경로와 ARGB 배열에서 변환하는 경로를 비교
+// 실행: ./gradlew :app:jmh -Pjmh.include=TensorPreprocessBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Thread)
+public class TensorPreprocessBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String previewSize;
+
+    @Param({"128", "224"})
+    public int modelSize;
+
+    @Param({"0", "1"})
+    public int numRotation;
+
+    private YuvFrame frame;
+    private int[] argb;
+    private int width, height;
+    private YuvToTensorConverter yuvConverter;
+    private ArgbToTensorConverter argbConverter;
+    private ByteBuffer floatTensor;
+    private ByteBuffer uint8Tensor;
+
+    @Setup
+    public void setUp() {
+        String[] size = previewSize.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        SyntheticYuv yuv = new SyntheticYuv(width, height, 64, 2, 42);
+        frame = yuv.toFrame(new YuvFrame());
+        argb = new YuvToRgbConverter().convert(frame).clone();
+        yuvConverter = new YuvToTensorConverter();
+        argbConverter = new ArgbToTensorConverter();
+        floatTensor = ByteBuffer.allocateDirect(modelSize * modelSize * 3 * 4)
+                .order(ByteOrder.nativeOrder());
+        uint8Tensor = ByteBuffer.allocateDirect(modelSize * modelSize * 3)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public ByteBuffer yuvToFloatTensor() {
+        yuvConverter.convert(frame, numRotation, modelSize, modelSize, DataType.FLOAT32, floatTensor);
+        return floatTensor;
+    }
+
+    @Benchmark
+    public ByteBuffer yuvToUint8Tensor() {
+        yuvConverter.convert(frame, numRotation, modelSize, modelSize, DataType.UINT8, uint8Tensor);
+        return uint8Tensor;
+    }
+
+    @Benchmark
+    public ByteBuffer argbToFloatTensor() {
+        argbConverter.convert(argb, width, height, numRotation, modelSize, modelSize,
+                DataType.FLOAT32, floatTensor);
+        return floatTensor;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.realtimecamera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// MobileNet 출력(1001 클래스)에서 상위 K개를 찾는 벤치마크
+// 실행: ./gradlew :app:jmh -Pjmh.include=TopKDecoderBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Thread)
+public class TopKDecoderBenchmark {
+
+    private static final int NUM_CLASSES = 1001;
+
+    @Param({"1", "5"})
+    public int k;
+
+    private FloatBuffer floatOutput;
+    private ByteBuffer uint8Output;
+    private List<String> labels;
+    private ClassificationResult result;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(NUM_CLASSES * 4)
+                .order(ByteOrder.nativeOrder());
+        floatOutput = buffer.asFloatBuffer();
+        uint8Output = ByteBuffer.allocateDirect(NUM_CLASSES);
+        labels = new ArrayList<>();
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            floatOutput.put(i, random.nextFloat());
+            uint8Output.put(i, (byte) random.nextInt(256));
+            labels.add("class" + i);
+        }
+        result = new ClassificationResult(5);
+    }
+
+    @Benchmark
+    public ClassificationResult decodeFloat() {
+        TopKDecoder.decode(floatOutput, NUM_CLASSES, k, labels, result);
+        return result;
+    }
+
+    @Benchmark
+    public ClassificationResult decodeUint8() {
+        TopKDecoder.decodeQuantized(uint8Output, NUM_CLASSES, 1.0f / 255, 0, k, labels, result);
+        return result;
+    }
+}
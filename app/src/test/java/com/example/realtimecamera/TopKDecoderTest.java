@@ -0,0 +1,93 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TopKDecoderTest {
+
+    private static List<String> labels(int count) {
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            labels.add("class" + i);
+        }
+        return labels;
+    }
+
+    @Test
+    public void decode_matchesFullSort() {
+        float[] scores = new float[1001];
+        Random random = new Random(31);
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextFloat();
+        }
+        float[] sorted = scores.clone();
+        Arrays.sort(sorted);
+
+        ClassificationResult result = new ClassificationResult(5);
+        TopKDecoder.decode(FloatBuffer.wrap(scores), scores.length, 5, labels(1001), result);
+        assertEquals(5, result.getCount());
+        for (int rank = 0; rank < 5; rank++) {
+            assertEquals(sorted[sorted.length - 1 - rank], result.getScore(rank), 0f);
+            assertEquals(sorted[sorted.length - 1 - rank], scores[result.getIndex(rank)], 0f);
+            assertEquals("class" + result.getIndex(rank), result.getLabel(rank));
+        }
+    }
+
+    @Test
+    public void decode_prefersLowerIndexOnTies() {
+        float[] scores = {0.1f, 0.5f, 0.5f, 0.2f, 0.5f};
+        ClassificationResult result = new ClassificationResult(3);
+        TopKDecoder.decode(scores, scores.length, 2, labels(5), result);
+        assertEquals(2, result.getCount());
+        assertEquals(1, result.getIndex(0));
+        assertEquals(2, result.getIndex(1));
+    }
+
+    @Test
+    public void decode_fewerClassesThanK() {
+        float[] scores = {0.3f, 0.7f};
+        ClassificationResult result = new ClassificationResult(4);
+        TopKDecoder.decode(scores, scores.length, 4, labels(2), result);
+        assertEquals(2, result.getCount());
+        assertEquals("class1", result.getLabel(0));
+        assertEquals("class0", result.getLabel(1));
+    }
+
+    @Test
+    public void decodeQuantized_dequantizesWinnersOnly() {
+        ByteBuffer output = ByteBuffer.allocateDirect(6);
+        output.put(new byte[]{10, (byte) 200, 3, (byte) 255, 0, 100});
+        ClassificationResult result = new ClassificationResult(2);
+        TopKDecoder.decodeQuantized(output, 6, 1.0f / 256, 0, 2, labels(6), result);
+        assertEquals(3, result.getIndex(0));
+        assertEquals(255 / 256f, result.getScore(0), 1e-6f);
+        assertEquals(1, result.getIndex(1));
+        assertEquals(200 / 256f, result.getScore(1), 1e-6f);
+    }
+
+    @Test
+    public void decodeQuantized_signedOutput() {
+        ByteBuffer output = ByteBuffer.allocateDirect(4);
+        output.put(new byte[]{-128, 127, -1, 0});
+        ClassificationResult result = new ClassificationResult(2);
+        // int8 출력: score = (q + 128) / 256
+        TopKDecoder.decodeQuantized(output, 4, true, 1.0f / 256, -128, 2, labels(4), result);
+        assertEquals(1, result.getIndex(0));
+        assertEquals(255 / 256f, result.getScore(0), 1e-6f);
+        assertEquals(3, result.getIndex(1));
+        assertEquals(128 / 256f, result.getScore(1), 1e-6f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsKLargerThanCapacity() {
+        TopKDecoder.decode(new float[3], 3, 2, null, new ClassificationResult(1));
+    }
+}
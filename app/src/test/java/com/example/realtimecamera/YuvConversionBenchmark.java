@@ -0,0 +1,117 @@
+package com.example.realtimecamera;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// 전체 프레임 YUV plane 재배치(NV21)와 YUV -> ARGB 변환 벤치마크
+// 재배치는 이전 구현(한 줄을 배열로 읽고 한 byte씩 옮김)과 YuvPlaneRepacker를 비교
+// 실행: ./gradlew :app:jmh -Pjmh.include=YuvConversionBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+@State(Scope.Thread)
+public class YuvConversionBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String previewSize;
+
+    // 1: I420 형태, 2: 대부분의 기기처럼 U/V가 교차 저장된 형태
+    @Param({"1", "2"})
+    public int uvPixelStride;
+
+    private YuvFrame frame;
+    private YuvToRgbConverter converter;
+    private YuvPlaneRepacker repacker;
+    private ByteBuffer directOutput;
+    private byte[] legacyOutput;
+    private byte[] legacyRow;
+
+    @Setup
+    public void setUp() {
+        String[] size = previewSize.split("x");
+        SyntheticYuv yuv = new SyntheticYuv(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+                64, uvPixelStride, 42);
+        frame = yuv.toFrame(new YuvFrame());
+        converter = new YuvToRgbConverter();
+        repacker = new YuvPlaneRepacker();
+        int outputSize = YuvPlaneRepacker.outputSize(frame.cropWidth, frame.cropHeight);
+        directOutput = ByteBuffer.allocateDirect(outputSize);
+        legacyOutput = new byte[outputSize];
+        legacyRow = new byte[frame.yRowStride];
+    }
+
+    // 이전 구현 (byte[]에 씀)
+    @Benchmark
+    public byte[] repackNv21Legacy() {
+        legacyImageToByteArray(frame, legacyOutput, legacyRow);
+        return legacyOutput;
+    }
+
+    // YuvPlaneRepacker로 byte[]에 씀 (YuvToRgbConverter.toNv21)
+    @Benchmark
+    public byte[] repackNv21() {
+        return converter.toNv21(frame);
+    }
+
+    // YuvPlaneRepacker로 direct ByteBuffer에 씀
+    @Benchmark
+    public ByteBuffer repackNv21Direct() {
+        repacker.repackNv21(frame, directOutput);
+        return directOutput;
+    }
+
+    @Benchmark
+    public int[] yuvToArgb() {
+        return converter.convert(frame);
+    }
+
+    // YuvPlaneRepacker 이전의 imageToByteArray. plane마다 한 줄을 배열로 읽고,
+    // Y가 아니거나 pixelStride가 1이 아니면 한 byte씩 옮김
+    private static void legacyImageToByteArray(YuvFrame frame, byte[] outputBuffer,
+                                               byte[] rowBuffer) {
+        int pixelCount = frame.cropWidth * frame.cropHeight;
+        for (int planeIndex = 0; planeIndex < 3; planeIndex++) {
+            int outputStride = planeIndex == 0 ? 1 : 2;
+            int outputOffset = planeIndex == 0 ? 0 : (planeIndex == 1 ? pixelCount + 1 : pixelCount);
+            ByteBuffer planeBuffer = planeIndex == 0 ? frame.yBuffer
+                    : (planeIndex == 1 ? frame.uBuffer : frame.vBuffer);
+            int rowStride = planeIndex == 0 ? frame.yRowStride : frame.uvRowStride;
+            int pixelStride = planeIndex == 0 ? frame.yPixelStride : frame.uvPixelStride;
+
+            int planeLeft = planeIndex == 0 ? frame.cropLeft : frame.cropLeft / 2;
+            int planeTop = planeIndex == 0 ? frame.cropTop : frame.cropTop / 2;
+            int planeWidth = planeIndex == 0 ? frame.cropWidth : frame.cropWidth / 2;
+            int planeHeight = planeIndex == 0 ? frame.cropHeight : frame.cropHeight / 2;
+
+            int rowLength = pixelStride == 1 && outputStride == 1
+                    ? planeWidth : (planeWidth - 1) * pixelStride + 1;
+            for (int row = 0; row < planeHeight; row++) {
+                planeBuffer.position((row + planeTop) * rowStride + planeLeft * pixelStride);
+                if (pixelStride == 1 && outputStride == 1) {
+                    planeBuffer.get(outputBuffer, outputOffset, rowLength);
+                    outputOffset += rowLength;
+                } else {
+                    planeBuffer.get(rowBuffer, 0, rowLength);
+                    for (int col = 0; col < planeWidth; col++) {
+                        outputBuffer[outputOffset] = rowBuffer[col * pixelStride];
+                        outputOffset += outputStride;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class YuvPlaneRepackerTest {
+
+    // crop 영역을 NV21 또는 NV12로 재배치한 기준값
+    private static byte[] reference(SyntheticYuv yuv, int left, int top, int width, int height,
+                                    boolean vFirst) {
+        byte[] expected = new byte[YuvPlaneRepacker.outputSize(width, height)];
+        int out = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                expected[out++] = (byte) yuv.y(left + col, top + row);
+            }
+        }
+        // chroma는 crop 시작 위치를 2로 나눈 위치부터 (YuvToRgbConverter와 같은 기준)
+        int uvLeft = left / 2;
+        int uvTop = top / 2;
+        for (int row = 0; row < height / 2; row++) {
+            for (int col = 0; col < width / 2; col++) {
+                int x = (uvLeft + col) * 2;
+                int y = (uvTop + row) * 2;
+                int u = yuv.u(x, y);
+                int v = yuv.v(x, y);
+                expected[out++] = (byte) (vFirst ? v : u);
+                expected[out++] = (byte) (vFirst ? u : v);
+            }
+        }
+        return expected;
+    }
+
+    private static void assertRepacked(byte[] expected, ByteBuffer output) {
+        assertEquals(0, output.position());
+        assertEquals(expected.length, output.limit());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("byte " + i, expected[i], output.get(i));
+        }
+    }
+
+    @Test
+    public void repack_matchesReferenceForEveryLayoutAndCrop() {
+        // {left, top, width, height}. 전체, 짝수 crop, 홀수 시작 위치, 홀수 크기
+        int[][] crops = {{0, 0, 34, 22}, {4, 2, 16, 12}, {3, 5, 20, 10}, {1, 1, 15, 9}};
+        for (SyntheticYuv.Chroma chroma : SyntheticYuv.Chroma.values()) {
+            for (int rowPadding : new int[]{0, 6}) {
+                SyntheticYuv yuv = new SyntheticYuv(34, 22, rowPadding, chroma, 17);
+                for (int[] crop : crops) {
+                    for (boolean direct : new boolean[]{true, false}) {
+                        YuvFrame frame = yuv.toFrame(new YuvFrame())
+                                .setCrop(crop[0], crop[1], crop[2], crop[3]);
+                        int size = YuvPlaneRepacker.outputSize(crop[2], crop[3]);
+                        ByteBuffer output = direct ? ByteBuffer.allocateDirect(size + 8)
+                                : ByteBuffer.allocate(size + 8);
+                        YuvPlaneRepacker repacker = new YuvPlaneRepacker();
+
+                        repacker.repackNv21(frame, output);
+                        assertRepacked(reference(yuv, crop[0], crop[1], crop[2], crop[3], true),
+                                output);
+                        repacker.repackNv12(frame, output);
+                        assertRepacked(reference(yuv, crop[0], crop[1], crop[2], crop[3], false),
+                                output);
+                    }
+                }
+            }
+        }
+    }
+
+    // chroma를 모두 같은 값으로 채움 (검은 화면처럼 비교로 판단할 수 없는 프레임)
+    private static SyntheticYuv uniformChroma(SyntheticYuv yuv) {
+        for (int i = 0; i < yuv.uPlane.limit(); i++) {
+            yuv.uPlane.put(i, (byte) 0x80);
+        }
+        for (int i = 0; i < yuv.vPlane.limit(); i++) {
+            yuv.vPlane.put(i, (byte) 0x80);
+        }
+        return yuv;
+    }
+
+    @Test
+    public void repack_usesBulkPathOnlyForMatchingSharedBuffer() {
+        // 설정마다 ImageReader 하나에 해당하는 repacker를 따로 사용
+        ByteBuffer output = ByteBuffer.allocateDirect(YuvPlaneRepacker.outputSize(16, 8));
+        YuvFrame nv21 = new SyntheticYuv(16, 8, 4, SyntheticYuv.Chroma.NV21, 3)
+                .toFrame(new YuvFrame());
+        YuvPlaneRepacker repacker = new YuvPlaneRepacker();
+        repacker.repackNv21(nv21, output);
+        assertEquals(1, repacker.getBulkFrameCount());
+        // NV21 버퍼를 NV12로 바꾸려면 순서를 바꿔야 하므로 일반 경로
+        repacker = new YuvPlaneRepacker();
+        repacker.repackNv12(nv21, output);
+        assertEquals(1, repacker.getGenericFrameCount());
+
+        YuvFrame nv12 = new SyntheticYuv(16, 8, 4, SyntheticYuv.Chroma.NV12, 3)
+                .toFrame(new YuvFrame());
+        repacker = new YuvPlaneRepacker();
+        repacker.repackNv12(nv12, output);
+        assertEquals(1, repacker.getBulkFrameCount());
+
+        YuvFrame strided = new SyntheticYuv(16, 8, 4, SyntheticYuv.Chroma.STRIDED, 3)
+                .toFrame(new YuvFrame());
+        repacker = new YuvPlaneRepacker();
+        repacker.repackNv21(strided, output);
+        assertEquals(1, repacker.getGenericFrameCount());
+        assertEquals(0, repacker.getBulkFrameCount());
+    }
+
+    @Test
+    public void repack_reusesLayoutForSameConfiguration() {
+        YuvPlaneRepacker repacker = new YuvPlaneRepacker();
+        ByteBuffer output = ByteBuffer.allocateDirect(YuvPlaneRepacker.outputSize(16, 8));
+
+        // 확정 전에는 판단할 수 없는 프레임에 일반 경로를 사용
+        SyntheticYuv uniform = uniformChroma(
+                new SyntheticYuv(16, 8, 4, SyntheticYuv.Chroma.NV21, 5));
+        repacker.repackNv21(uniform.toFrame(new YuvFrame()), output);
+        assertEquals(1, repacker.getGenericFrameCount());
+
+        for (int i = 0; i < 3; i++) {
+            SyntheticYuv yuv = new SyntheticYuv(16, 8, 4, SyntheticYuv.Chroma.NV21, 10 + i);
+            repacker.repackNv21(yuv.toFrame(new YuvFrame()), output);
+            assertRepacked(reference(yuv, 0, 0, 16, 8, true), output);
+        }
+        assertEquals(3, repacker.getBulkFrameCount());
+        // 확정된 뒤에는 같은 설정의 프레임을 다시 비교하지 않음
+        repacker.repackNv21(uniform.toFrame(new YuvFrame()), output);
+        assertEquals(4, repacker.getBulkFrameCount());
+        for (int i = YuvPlaneRepacker.outputSize(16, 8) - 16 * 4; i < output.limit(); i++) {
+            assertEquals((byte) 0x80, output.get(i));
+        }
+
+        // 설정이 바뀌면 다시 확인
+        YuvFrame separate = new SyntheticYuv(16, 8, 6, SyntheticYuv.Chroma.STRIDED, 3)
+                .toFrame(new YuvFrame());
+        repacker.repackNv21(separate, output);
+        repacker.repackNv21(separate, output);
+        assertEquals(4, repacker.getBulkFrameCount());
+        assertEquals(3, repacker.getGenericFrameCount());
+    }
+
+    @Test
+    public void compareOverlap_readsOnly() {
+        SyntheticYuv yuv = new SyntheticYuv(16, 8, 2, SyntheticYuv.Chroma.NV21, 9);
+        // 읽기 전용 버퍼로도 확인할 수 있어야 함 (입력 버퍼에 쓰지 않음)
+        ByteBuffer v = yuv.vPlane.asReadOnlyBuffer();
+        ByteBuffer u = yuv.uPlane.asReadOnlyBuffer();
+        assertEquals(YuvPlaneRepacker.OVERLAP_MATCH,
+                YuvPlaneRepacker.compareOverlap(v, u, yuv.uvRowStride, 8, 4));
+        assertEquals(YuvPlaneRepacker.OVERLAP_MISMATCH,
+                YuvPlaneRepacker.compareOverlap(u, v, yuv.uvRowStride, 8, 4));
+
+        SyntheticYuv strided = new SyntheticYuv(16, 8, 2, SyntheticYuv.Chroma.STRIDED, 9);
+        assertEquals(YuvPlaneRepacker.OVERLAP_MISMATCH, YuvPlaneRepacker.compareOverlap(
+                strided.vPlane, strided.uPlane, strided.uvRowStride, 8, 4));
+
+        uniformChroma(yuv);
+        assertEquals(YuvPlaneRepacker.OVERLAP_UNKNOWN,
+                YuvPlaneRepacker.compareOverlap(v, u, yuv.uvRowStride, 8, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void repack_rejectsSmallOutput() {
+        YuvFrame frame = new SyntheticYuv(16, 8, 0, 2, 1).toFrame(new YuvFrame());
+        new YuvPlaneRepacker().repackNv21(frame, ByteBuffer.allocateDirect(16 * 8));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class YuvToRgbConverterTest {
+
+    private static void assertConverted(SyntheticYuv yuv, YuvFrame frame, int[] argb) {
+        int index = 0;
+        for (int row = 0; row < frame.cropHeight; row++) {
+            for (int col = 0; col < frame.cropWidth; col++) {
+                int x = frame.cropLeft + col;
+                int y = frame.cropTop + row;
+                int[] expected = SyntheticYuv.referenceRgb(yuv.y(x, y), yuv.u(x, y), yuv.v(x, y));
+                int pixel = argb[index++];
+                assertEquals(0xff, pixel >>> 24);
+                assertEquals(expected[0], (pixel >> 16) & 0xff, 2);
+                assertEquals(expected[1], (pixel >> 8) & 0xff, 2);
+                assertEquals(expected[2], pixel & 0xff, 2);
+            }
+        }
+    }
+
+    @Test
+    public void convert_planar() {
+        SyntheticYuv yuv = new SyntheticYuv(64, 48, 0, 1, 1);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        assertConverted(yuv, frame, new YuvToRgbConverter().convert(frame));
+    }
+
+    @Test
+    public void convert_semiPlanarWithRowPadding() {
+        SyntheticYuv yuv = new SyntheticYuv(64, 48, 16, 2, 2);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        assertConverted(yuv, frame, new YuvToRgbConverter().convert(frame));
+    }
+
+    @Test
+    public void convert_honorsOddCropRect() {
+        SyntheticYuv yuv = new SyntheticYuv(64, 48, 8, 2, 3);
+        YuvFrame frame = yuv.toFrame(new YuvFrame()).setCrop(5, 3, 40, 30);
+        int[] argb = new YuvToRgbConverter().convert(frame);
+        assertConverted(yuv, frame, argb);
+    }
+
+    @Test
+    public void convert_reusesBuffersForSameSize() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 32, 0, 2, 4);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        YuvToRgbConverter converter = new YuvToRgbConverter();
+        int[] first = converter.convert(frame);
+        assertSame(first, converter.convert(frame));
+        assertSame(converter.toNv21(frame), converter.toNv21(frame));
+    }
+
+    @Test
+    public void toNv21_interleavesVu() {
+        SyntheticYuv yuv = new SyntheticYuv(16, 8, 4, 2, 5);
+        byte[] nv21 = new YuvToRgbConverter().toNv21(yuv.toFrame(new YuvFrame()));
+        int pixelCount = 16 * 8;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 16; col++) {
+                assertEquals(yuv.y(col, row), nv21[row * 16 + col] & 0xff);
+            }
+        }
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 8; col++) {
+                int offset = pixelCount + row * 16 + col * 2;
+                assertEquals(yuv.v(col * 2, row * 2), nv21[offset] & 0xff);
+                assertEquals(yuv.u(col * 2, row * 2), nv21[offset + 1] & 0xff);
+            }
+        }
+    }
+}
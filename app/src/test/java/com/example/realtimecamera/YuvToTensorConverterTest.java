@@ -0,0 +1,181 @@
+package com.example.realtimecamera;
+
+import org.junit.Test;
+import org.tensorflow.lite.DataType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class YuvToTensorConverterTest {
+
+    // 기존 전처리 순서대로 만든 기준 이미지: 전체 변환 -> 가운데 자르기 -> 축소 -> 반시계 회전
+    private static int[] reference(YuvFrame frame, int size, int numRotation) {
+        int width = frame.cropWidth;
+        int height = frame.cropHeight;
+        int[] argb = new YuvToRgbConverter().convert(frame).clone();
+        int cropSize = Math.min(width, height);
+        int left = (width - cropSize) / 2;
+        int top = (height - cropSize) / 2;
+
+        int[] resized = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int sx = left + (2 * x + 1) * cropSize / (2 * size);
+                int sy = top + (2 * y + 1) * cropSize / (2 * size);
+                resized[y * size + x] = argb[sy * width + sx];
+            }
+        }
+        for (int r = 0; r < InputSampler.normalizeRotation(numRotation); r++) {
+            int[] rotated = new int[size * size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    // 반시계 90도: 오른쪽 위 픽셀이 왼쪽 위로 감
+                    rotated[(size - 1 - x) * size + y] = resized[y * size + x];
+                }
+            }
+            resized = rotated;
+        }
+        return resized;
+    }
+
+    private static void assertFloatTensor(int[] expected, ByteBuffer tensor) {
+        for (int pixel : expected) {
+            assertEquals(((pixel >> 16) & 0xff) / 255.0f, tensor.getFloat(), 1e-6f);
+            assertEquals(((pixel >> 8) & 0xff) / 255.0f, tensor.getFloat(), 1e-6f);
+            assertEquals((pixel & 0xff) / 255.0f, tensor.getFloat(), 1e-6f);
+        }
+    }
+
+    @Test
+    public void convert_matchesCropResizeRotateForEveryRotation() {
+        SyntheticYuv yuv = new SyntheticYuv(64, 48, 8, 2, 11);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        YuvToTensorConverter converter = new YuvToTensorConverter();
+        ByteBuffer tensor = ByteBuffer.allocateDirect(16 * 16 * 3 * 4)
+                .order(ByteOrder.nativeOrder());
+        for (int numRotation = -1; numRotation <= 3; numRotation++) {
+            converter.convert(frame, numRotation, 16, 16, DataType.FLOAT32, tensor);
+            assertFloatTensor(reference(frame, 16, numRotation), tensor);
+        }
+    }
+
+    // 8x4 planar 프레임. 가운데 4x4를 2x2로 줄이면 (3, 1), (5, 1), (3, 3), (5, 3) 픽셀을 읽음
+    // 읽는 픽셀 밖은 모두 Y 200으로 채워서 다른 픽셀을 읽으면 값이 달라지게 함
+    private static YuvFrame knownFrame() {
+        ByteBuffer y = ByteBuffer.allocateDirect(8 * 4);
+        for (int i = 0; i < 8 * 4; i++) {
+            y.put(i, (byte) 200);
+        }
+        y.put(1 * 8 + 3, (byte) 16);
+        y.put(1 * 8 + 5, (byte) 80);
+        y.put(3 * 8 + 3, (byte) 144);
+        y.put(3 * 8 + 5, (byte) 81);
+        ByteBuffer u = ByteBuffer.allocateDirect(4 * 2);
+        ByteBuffer v = ByteBuffer.allocateDirect(4 * 2);
+        for (int i = 0; i < 4 * 2; i++) {
+            u.put(i, (byte) 128);
+            v.put(i, (byte) 128);
+        }
+        // (5, 3)이 들어 있는 chroma 블록(2, 1)만 빨간색
+        u.put(1 * 4 + 2, (byte) 90);
+        v.put(1 * 4 + 2, (byte) 240);
+        return new YuvFrame().set(y, 8, 1, u, v, 4, 1, 8, 4);
+    }
+
+    private static void assertUint8Tensor(int[] expected, ByteBuffer tensor) {
+        for (int value : expected) {
+            assertEquals(value, tensor.get() & 0xff);
+        }
+    }
+
+    @Test
+    public void convert_knownFrame_matchesHandComputedPixels() {
+        // 회색(U = V = 128)은 R = G = B = (Y - 16) * 1.164
+        //   Y 16 -> 0, Y 80 -> 74, Y 144 -> 149
+        // Y 81, U 90, V 240 -> R 254, G 0, B 0
+        ByteBuffer tensor = ByteBuffer.allocateDirect(2 * 2 * 3);
+        YuvToTensorConverter converter = new YuvToTensorConverter();
+        converter.convert(knownFrame(), 0, 2, 2, DataType.UINT8, tensor);
+        assertUint8Tensor(new int[]{
+                0, 0, 0, 74, 74, 74,
+                149, 149, 149, 254, 0, 0}, tensor);
+
+        // 반시계 90도 : 오른쪽 위 픽셀이 왼쪽 위로 감
+        converter.convert(knownFrame(), 1, 2, 2, DataType.UINT8, tensor);
+        assertUint8Tensor(new int[]{
+                74, 74, 74, 254, 0, 0,
+                0, 0, 0, 149, 149, 149}, tensor);
+    }
+
+    @Test
+    public void convert_portraitFrameWithCrop() {
+        SyntheticYuv yuv = new SyntheticYuv(40, 70, 0, 1, 12);
+        YuvFrame frame = yuv.toFrame(new YuvFrame()).setCrop(2, 4, 36, 60);
+        ByteBuffer tensor = ByteBuffer.allocateDirect(24 * 24 * 3 * 4)
+                .order(ByteOrder.nativeOrder());
+        new YuvToTensorConverter().convert(frame, 1, 24, 24, DataType.FLOAT32, tensor);
+        assertFloatTensor(reference(frame, 24, 1), tensor);
+    }
+
+    @Test
+    public void convert_writesUint8ForQuantizedInput() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 24, 0, 2, 13);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        ByteBuffer tensor = ByteBuffer.allocateDirect(8 * 8 * 3);
+        new YuvToTensorConverter().convert(frame, 0, 8, 8, DataType.UINT8, tensor);
+        for (int pixel : reference(frame, 8, 0)) {
+            assertEquals((pixel >> 16) & 0xff, tensor.get() & 0xff);
+            assertEquals((pixel >> 8) & 0xff, tensor.get() & 0xff);
+            assertEquals(pixel & 0xff, tensor.get() & 0xff);
+        }
+    }
+
+    @Test
+    public void convert_shiftsToSignedForInt8Input() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 24, 0, 2, 13);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        ByteBuffer tensor = ByteBuffer.allocateDirect(8 * 8 * 3);
+        new YuvToTensorConverter().convert(frame, 0, 8, 8, DataType.INT8, tensor);
+        // int8 입력은 zero point가 -128 이므로 uint8 값에서 128을 뺀 값
+        for (int pixel : reference(frame, 8, 0)) {
+            assertEquals(((pixel >> 16) & 0xff) - 128, tensor.get());
+            assertEquals(((pixel >> 8) & 0xff) - 128, tensor.get());
+            assertEquals((pixel & 0xff) - 128, tensor.get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void convert_rejectsUnsupportedInputType() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 24, 0, 2, 13);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        new YuvToTensorConverter().convert(frame, 0, 8, 8, DataType.INT32,
+                ByteBuffer.allocateDirect(8 * 8 * 4 * 3));
+    }
+
+    @Test
+    public void convert_regionMatchesFrameCroppedToRegion() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 24, 0, 2, 13);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        YuvToTensorConverter converter = new YuvToTensorConverter();
+        ByteBuffer tensor = ByteBuffer.allocateDirect(8 * 8 * 3);
+        converter.convert(frame, new CropRegion(5, 3, 16, 16), 1, 8, 8, DataType.UINT8, tensor);
+
+        // 정사각형 영역은 프레임의 crop을 그 영역으로 바꾼 뒤 가운데를 자른 것과 같음
+        frame.setCrop(5, 3, 16, 16);
+        for (int pixel : reference(frame, 8, 1)) {
+            assertEquals((pixel >> 16) & 0xff, tensor.get() & 0xff);
+            assertEquals((pixel >> 8) & 0xff, tensor.get() & 0xff);
+            assertEquals(pixel & 0xff, tensor.get() & 0xff);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void convert_rejectsRegionOutsideFrame() {
+        SyntheticYuv yuv = new SyntheticYuv(32, 24, 0, 2, 13);
+        YuvFrame frame = yuv.toFrame(new YuvFrame());
+        new YuvToTensorConverter().convert(frame, new CropRegion(20, 10, 16, 16), 0, 8, 8,
+                DataType.UINT8, ByteBuffer.allocateDirect(8 * 8 * 3));
+    }
+}